@@ -0,0 +1,174 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batch KMACXOF256 over many small inputs (manifest entries, per-file tags,
+ * key derivations of the form KMACXOF256(z || pw, "", 1024, "S")).
+ * 
+ * Each input is laid out as its padded block sequence, the inputs are sorted
+ * by number of blocks, and groups of them go through a {@link MultiKeccakEngine}
+ * in lockstep, so a SIMD engine advances 4 or 8 sponges per permutation. The
+ * results are the same as calling KMACXOF256 on each input.
+ * 
+ * @author Minh Nguyen
+ */
+public final class BatchHash {
+	
+	private static final int RATE = SecurityProfile.BITS_256.rate();
+	
+	private static final byte[] RIGHT_ENCODE_0 = HASH.right_encode(0);
+	
+	/**
+	 * One multi-buffer engine per thread, as engines keep scratch space.
+	 */
+	private static final ThreadLocal<MultiKeccakEngine> ENGINE =
+			ThreadLocal.withInitial(MultiKeccakEngine::newInstance);
+	
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private BatchHash() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * Plain hash of every message: h_i <- KMACXOF256(“”, m_i, 512, “D”)
+	 * 
+	 * @param messages the messages
+	 * @return the hashes, in the same order
+	 */
+	public static List<byte[]> hashAll(final List<byte[]> messages) {
+		return kmacAll("".getBytes(), messages, 512, "D".getBytes());
+	}
+	
+	/**
+	 * KMACXOF256(K, X_i, L, S) for every X_i under one key. The key prefix is
+	 * absorbed once for the whole batch.
+	 * 
+	 * @param K a key bit string of any length, including zero
+	 * @param X the main inputs
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 * @return the outputs, in the same order
+	 */
+	public static List<byte[]> kmacAll(final byte[] K, final List<byte[]> X, final int L, final byte[] S) {
+		long[] start = new long[25];
+		new KmacKey(K, S).state().copyStateTo(start);
+		byte[][] inputs = new byte[X.size()][];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = pad(null, X.get(i));
+		}
+		return run(start, inputs, L >>> 3);
+	}
+	
+	/**
+	 * KMACXOF256(K_i, X_i, L, S) for every pair of key and input.
+	 * 
+	 * @param K the keys
+	 * @param X the main inputs, as many as keys
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 * @return the outputs, in the same order
+	 */
+	public static List<byte[]> kmacAll(final List<byte[]> K, final List<byte[]> X, final int L, final byte[] S) {
+		if (K.size() != X.size()) {
+			throw new IllegalArgumentException("There must be as many keys as inputs.");
+		}
+		long[] start = new long[25];
+		CShakePrefixCache.get(SecurityProfile.BITS_256, "KMAC", S).copyStateTo(start);
+		byte[][] inputs = new byte[X.size()][];
+		for (int i = 0; i < inputs.length; i++) {
+			// bytepad(encode_string(K), 136)
+			inputs[i] = pad(HASH.bytepad(HASH.encode_string(K.get(i)), RATE), X.get(i));
+		}
+		return run(start, inputs, L >>> 3);
+	}
+	
+	/**
+	 * Lay out keyPrefix || X || right_encode(0), padded with the cSHAKE suffix
+	 * and pad10*1 to a whole number of blocks.
+	 */
+	private static byte[] pad(final byte[] keyPrefix, final byte[] X) {
+		int prefixLength = keyPrefix == null ? 0 : keyPrefix.length;
+		int length = prefixLength + X.length + RIGHT_ENCODE_0.length;
+		byte[] padded = new byte[(length / RATE + 1) * RATE];
+		if (keyPrefix != null) {
+			System.arraycopy(keyPrefix, 0, padded, 0, prefixLength);
+		}
+		System.arraycopy(X, 0, padded, prefixLength, X.length);
+		System.arraycopy(RIGHT_ENCODE_0, 0, padded, prefixLength + X.length, RIGHT_ENCODE_0.length);
+		padded[length] ^= 0x04;
+		padded[padded.length - 1] ^= (byte)0x80;
+		return padded;
+	}
+	
+	/**
+	 * Run every padded input through its own sponge, starting from the given
+	 * state, and squeeze outLength bytes from each.
+	 */
+	private static List<byte[]> run(final long[] start, final byte[][] inputs, final int outLength) {
+		int n = inputs.length;
+		int squeezeBlocks = Math.max(1, (outLength + RATE - 1) / RATE);
+		long[][] states = new long[n][];
+		int[] steps = new int[n];
+		byte[][] out = new byte[n][outLength];
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			states[i] = start.clone();
+			steps[i] = inputs[i].length / RATE + squeezeBlocks - 1;
+			order[i] = i;
+		}
+		// group inputs of similar length so few lanes sit idle
+		Arrays.sort(order, (x, y) -> Integer.compare(steps[x], steps[y]));
+		
+		MultiKeccakEngine engine = ENGINE.get();
+		int w = engine.lanes();
+		long[][] group = new long[w][];
+		for (int g = 0; g < n; g += w) {
+			int count = Math.min(w, n - g);
+			for (int k = 0; k < count; k++) {
+				group[k] = states[order[g + k]];
+			}
+			int groupSteps = steps[order[g + count - 1]];
+			for (int s = 0; s < groupSteps; s++) {
+				for (int k = 0; k < count; k++) {
+					int i = order[g + k];
+					if (s * RATE < inputs[i].length) {
+						xorBlock(states[i], inputs[i], s * RATE);
+					}
+				}
+				engine.permute(group, 0, count);
+				for (int k = 0; k < count; k++) {
+					int i = order[g + k];
+					int squeezed = s - inputs[i].length / RATE + 1;
+					if (squeezed >= 0 && squeezed < squeezeBlocks) {
+						extractBlock(states[i], out[i], squeezed * RATE);
+					}
+				}
+			}
+		}
+		
+		List<byte[]> result = new ArrayList<>(n);
+		Collections.addAll(result, out);
+		return result;
+	}
+	
+	private static void xorBlock(final long[] state, final byte[] input, final int off) {
+		for (int j = 0; j < RATE / 8; j++) {
+			state[j] ^= (long)KeccakSponge.LANE.get(input, off + 8 * j);
+		}
+	}
+	
+	private static void extractBlock(final long[] state, final byte[] out, final int off) {
+		int len = Math.min(RATE, out.length - off);
+		for (int j = 0; j < len; j++) {
+			out[off + j] = (byte)(state[j >>> 3] >>> ((j & 7) << 3));
+		}
+	}
+}
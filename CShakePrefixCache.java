@@ -0,0 +1,133 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of pre-permuted cSHAKE sponge states.
+ * 
+ * cSHAKE256 with a function name N and customization string S first absorbs
+ * bytepad(encode_string(N) || encode_string(S), 136) (cSHAKE128 pads to 168).
+ * The state after that prefix only depends on (N, S) and the security level,
+ * so it is computed once and every new computation starts from a copy of it.
+ * 
+ * The pairs used by this program ("KMAC" with "S", "SKE", "SKA", "D", "T",
+ * "K", "P", "PKE" and "PKA" at the 256-bit level) live in an immutable table
+ * built at class load.
+ * Any other pair goes into a bounded LRU cache.
+ * 
+ * Cached sponges are never modified; callers copy them.
+ * 
+ * @author Minh Nguyen
+ */
+final class CShakePrefixCache {
+	
+	/**
+	 * Customization strings of KMACXOF256 used throughout the program.
+	 */
+	private static final String[] WELL_KNOWN_KMAC =
+		{"S", "SKE", "SKA", "D", "T", "K", "P", "PKE", "PKA"};
+	
+	/**
+	 * Maximum number of entries in the LRU cache.
+	 */
+	private static final int LRU_CAPACITY = 64;
+	
+	private static final Map<Key, KeccakSponge> WELL_KNOWN;
+	
+	private static final Map<Key, KeccakSponge> LRU =
+			new LinkedHashMap<Key, KeccakSponge>(LRU_CAPACITY, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Key, KeccakSponge> eldest) {
+					return size() > LRU_CAPACITY;
+				}
+			};
+	
+	static {
+		Map<Key, KeccakSponge> table = new HashMap<>();
+		for (String s : WELL_KNOWN_KMAC) {
+			Key key = new Key(SecurityProfile.BITS_256, "KMAC", s.getBytes());
+			table.put(key, absorbPrefix(key));
+		}
+		WELL_KNOWN = Collections.unmodifiableMap(table);
+	}
+	
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private CShakePrefixCache() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * Get the sponge state after absorbing the cSHAKE prefix of (N, S).
+	 * The returned sponge is shared and must not be modified.
+	 * 
+	 * @param profile the security profile, which fixes the rate.
+	 * @param N a string of a function name.
+	 * @param S a customization string; null is taken as the empty string.
+	 */
+	static KeccakSponge get(final SecurityProfile profile, final String N, final byte[] S) {
+		Key key = new Key(profile, N, S == null ? new byte[0] : S);
+		KeccakSponge state = WELL_KNOWN.get(key);
+		if (state != null) {
+			return state;
+		}
+		synchronized (LRU) {
+			state = LRU.get(key);
+		}
+		if (state == null) {
+			key = new Key(profile, N, key.s.clone());
+			state = absorbPrefix(key);
+			synchronized (LRU) {
+				LRU.put(key, state);
+			}
+		}
+		return state;
+	}
+	
+	private static KeccakSponge absorbPrefix(final Key key) {
+		// bytepad(encode_string(N) || encode_string(S), rate)
+		KeccakSponge sponge = new KeccakSponge(key.profile, KeccakSponge.ROUNDS);
+		byte[] data = HASH.bytepad(HASH.combineArrays(HASH.encode_string(key.n.getBytes()),
+													  HASH.encode_string(key.s)), sponge.rate());
+		sponge.absorb(data, 0, data.length);
+		return sponge;
+	}
+	
+	/**
+	 * An (N, S) pair, at a security level, compared by content.
+	 */
+	private static final class Key {
+		private final SecurityProfile profile;
+		private final String n;
+		private final byte[] s;
+		
+		Key(final SecurityProfile theProfile, final String theN, final byte[] theS) {
+			profile = theProfile;
+			n = theN;
+			s = theS;
+		}
+		
+		@Override
+		public boolean equals(final Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key k = (Key)other;
+			return profile == k.profile && n.equals(k.n) && Arrays.equals(s, k.s);
+		}
+		
+		@Override
+		public int hashCode() {
+			return 31 * (31 * profile.hashCode() + n.hashCode()) + Arrays.hashCode(s);
+		}
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Incremental cSHAKE256 (NIST SP 800-185: https://doi.org/10.6028/NIST.SP.800-185),
+ * or cSHAKE128 when built for the 128-bit security profile.
+ * 
+ * Usage: init(N, S) -> update(...) any number of times -> finish(L), or
+ * squeeze(out) any number of times for extensible output. The message is
+ * absorbed as it arrives, so memory stays constant regardless of its size.
+ * A stream may be re-used by calling init again.
+ * 
+ * @author Minh Nguyen
+ */
+public class CShakeStream {
+	
+	/**
+	 * Size of the buffer used to pull data from streams and channels.
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+	
+	/**
+	 * Size of the windows a file is memory-mapped in.
+	 */
+	static final long MAP_WINDOW = 1L << 28;
+	
+	/**
+	 * The security profile, which fixes the rate of the sponge.
+	 */
+	protected final SecurityProfile profile;
+	
+	/**
+	 * The underlying sponge.
+	 */
+	protected final KeccakSponge sponge;
+	
+	private boolean shake;
+	private boolean squeezing;
+	
+	/**
+	 * Construct a cSHAKE256 stream. It must be initialized with init before use.
+	 */
+	public CShakeStream() {
+		this(SecurityProfile.BITS_256);
+	}
+	
+	/**
+	 * Construct a stream for the given security profile: cSHAKE128 for
+	 * BITS_128, cSHAKE256 for BITS_256. It must be initialized with init
+	 * before use.
+	 */
+	public CShakeStream(final SecurityProfile theProfile) {
+		profile = theProfile;
+		sponge = new KeccakSponge(profile, KeccakSponge.ROUNDS);
+	}
+	
+	/**
+	 * Start a new cSHAKE computation.
+	 * 
+	 * @param N a string of a function name. When no function other than cSHAKE is desired, 
+	 * 		  N is set to the empty string.
+	 * @param S an input string to allow users to customize their use of the function.
+	 * 		  When no customization is desired, S is set to the empty string.
+	 * @return this stream
+	 */
+	public CShakeStream init(final String N, final byte[] S) {
+		// if N = "" && S = "" return SHAKE256(X, L) (SHAKE128 at the 128-bit level)
+		if (N.isEmpty() && (S == null || S.length == 0)) {
+			sponge.reset();
+			shake = true;
+			squeezing = false;
+			return this;
+		}
+		
+		// KECCAK[512](bytepad(encode_string(N) || encode_string(S), 136) || X || 00, L),
+		// starting from the cached state after the bytepad prefix
+		return restore(CShakePrefixCache.get(profile, N, S));
+	}
+	
+	/**
+	 * Start a new cSHAKE256 computation from a snapshot of a sponge that has
+	 * already absorbed a customization prefix.
+	 * 
+	 * @param snapshot the sponge state to start from; it is copied, not modified.
+	 * @return this stream
+	 */
+	protected CShakeStream restore(final KeccakSponge snapshot) {
+		sponge.copyFrom(snapshot);
+		shake = false;
+		squeezing = false;
+		return this;
+	}
+	
+	/**
+	 * Absorb a whole byte array.
+	 */
+	public CShakeStream update(final byte[] X) {
+		return update(X, 0, X.length);
+	}
+	
+	/**
+	 * Absorb len bytes of X starting at off.
+	 */
+	public CShakeStream update(final byte[] X, final int off, final int len) {
+		checkAbsorbing();
+		sponge.absorb(X, off, len);
+		return this;
+	}
+	
+	/**
+	 * Absorb the remaining bytes of a buffer, advancing its position to its limit.
+	 */
+	public CShakeStream update(final ByteBuffer X) {
+		checkAbsorbing();
+		sponge.absorb(X);
+		return this;
+	}
+	
+	/**
+	 * Absorb everything that can be read from the stream, up to its end.
+	 * The stream is not closed.
+	 */
+	public CShakeStream update(final InputStream in) throws IOException {
+		checkAbsorbing();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			sponge.absorb(buffer, 0, n);
+		}
+		return this;
+	}
+	
+	/**
+	 * Absorb everything that can be read from the channel, up to its end.
+	 * The channel is not closed.
+	 */
+	public CShakeStream update(final ReadableByteChannel in) throws IOException {
+		checkAbsorbing();
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		while (in.read(buffer) != -1) {
+			buffer.flip();
+			sponge.absorb(buffer);
+			buffer.clear();
+		}
+		return this;
+	}
+	
+	/**
+	 * Absorb the whole content of a file.
+	 * 
+	 * The file is memory-mapped in windows of MAP_WINDOW bytes and absorbed
+	 * straight from the mapping, so there is no copy on the heap and files
+	 * larger than Integer.MAX_VALUE bytes are supported.
+	 */
+	public CShakeStream update(final Path file) throws IOException {
+		checkAbsorbing();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+													  Math.min(MAP_WINDOW, size - pos));
+				sponge.absorb(window);
+			}
+		}
+		return this;
+	}
+	
+	/**
+	 * Finish the computation and return L bits of output.
+	 * 
+	 * @param L an integer representing the requested output length in bits.
+	 */
+	public byte[] finish(final int L) {
+		byte[] out = new byte[L >>> 3];
+		squeeze(out, 0, out.length);
+		return out;
+	}
+	
+	/**
+	 * Fill out with output. The first call closes the input; later calls
+	 * continue the output where the previous call stopped.
+	 */
+	public void squeeze(final byte[] out) {
+		squeeze(out, 0, out.length);
+	}
+	
+	/**
+	 * Write len bytes of output into out starting at off. The first call
+	 * closes the input; later calls continue the output where the previous
+	 * call stopped.
+	 */
+	public void squeeze(final byte[] out, final int off, final int len) {
+		startSqueezing();
+		sponge.squeeze(out, off, len);
+	}
+	
+	/**
+	 * Use the output as a keystream: XOR the next len bytes of output with
+	 * in starting at inOff, writing the result into out starting at outOff.
+	 * in and out may be the same array (at the same offset) for in-place
+	 * operation. Like squeeze, the first call closes the input and later
+	 * calls continue the keystream, so there is no limit on its length.
+	 */
+	public void squeezeXor(final byte[] in, final int inOff, final byte[] out, final int outOff, final int len) {
+		startSqueezing();
+		sponge.squeezeXor(in, inOff, out, outOff, len);
+	}
+	
+	/**
+	 * Fill the remaining bytes of a buffer, heap or direct, with output,
+	 * advancing its position. The first call closes the input; later calls
+	 * continue the output where the previous call stopped.
+	 */
+	public void squeeze(final ByteBuffer out) {
+		startSqueezing();
+		sponge.squeeze(out);
+	}
+	
+	/**
+	 * Use the output as a keystream over buffers, heap or direct: XOR the
+	 * remaining bytes of in with the next bytes of output, writing the result
+	 * into out. Both buffers are advanced; they may share memory at the same
+	 * address for in-place operation.
+	 */
+	public void squeezeXor(final ByteBuffer in, final ByteBuffer out) {
+		startSqueezing();
+		sponge.squeezeXor(in, out);
+	}
+	
+	private void startSqueezing() {
+		if (!squeezing) {
+			finishInput();
+			sponge.pad(shake ? 0x1F : 0x04);
+			squeezing = true;
+		}
+	}
+	
+	/**
+	 * Absorb whatever trails the message before padding. Nothing for cSHAKE.
+	 */
+	protected void finishInput() {
+		// DO NOTHING
+	}
+	
+	private void checkAbsorbing() {
+		if (squeezing) {
+			throw new IllegalStateException("Cannot update after output has been squeezed.");
+		}
+	}
+}
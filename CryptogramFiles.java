@@ -0,0 +1,256 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary files for cryptograms and public keys, in place of Java
+ * serialization. Every file starts with a 4-byte magic and a version byte,
+ * z and t have fixed sizes, lengths are explicit, and points are stored
+ * compressed (EllipticCurvePoint.toCompressed, 66 bytes):
+ *
+ * Symmetric cryptogram: “KXSC” (4) || 1 (1) || z (64) || c || t (64)
+ * Elliptic cryptogram:  “KXEC” (4) || 1 (1) || Z (66) || |c| (8) || c || t (64)
+ * Public key:           “KXPK” (4) || 1 (1) || V (66)
+ *
+ * The symmetric layout is version 1 of SymmetricFileCipher, so its files
+ * and these can be decrypted by either side; the length of c follows from
+ * the file size.
+ *
+ * Files are written with a single gathering write straight from the
+ * cryptogram arrays. Readers parse the fixed-size header first, check the
+ * lengths against the file size, and then read the payload directly into
+ * its final array.
+ *
+ * @author Minh Nguyen
+ */
+public final class CryptogramFiles {
+
+	/**
+	 * File magic of an elliptic cryptogram, "KXEC".
+	 */
+	static final int ELLIPTIC_MAGIC = 0x4B584543;
+
+	/**
+	 * File magic of a public key, "KXPK".
+	 */
+	static final int PUBLIC_KEY_MAGIC = 0x4B58504B;
+
+	/**
+	 * Version of the elliptic cryptogram and public key layouts.
+	 */
+	static final byte VERSION = 1;
+
+	private static final int Z_LENGTH = SymmetricFileCipher.Z_LENGTH;
+	private static final int TAG_LENGTH = SymmetricFileCipher.TAG_LENGTH;
+	private static final int POINT_LENGTH = EllipticCurvePoint.ENCODED_LENGTH;
+
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private CryptogramFiles() {
+		// DO NOTHING
+	}
+
+	/**
+	 * Write a symmetric cryptogram (z, c, t).
+	 */
+	public static void writeSymmetric(final Path file, final SymmetricCrytogram cryptogram) throws IOException {
+		checkLength(cryptogram.getZ(), Z_LENGTH, "z");
+		checkLength(cryptogram.getT(), TAG_LENGTH, "t");
+		ByteBuffer header = ByteBuffer.allocate(SymmetricFileCipher.HEADER_LENGTH)
+				.putInt(SymmetricFileCipher.MAGIC)
+				.put(SymmetricFileCipher.VERSION_STREAM)
+				.put(cryptogram.getZ())
+				.flip();
+		write(file, header, ByteBuffer.wrap(cryptogram.getC()), ByteBuffer.wrap(cryptogram.getT()));
+	}
+
+	/**
+	 * Read a symmetric cryptogram written by writeSymmetric or
+	 * SymmetricFileCipher.encrypt.
+	 */
+	public static SymmetricCrytogram readSymmetric(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = readHeader(channel, SymmetricFileCipher.MAGIC, SymmetricFileCipher.VERSION_STREAM,
+										   SymmetricFileCipher.HEADER_LENGTH);
+			byte[] z = new byte[Z_LENGTH];
+			header.get(z);
+			byte[] c = new byte[payloadLength(channel.size() - SymmetricFileCipher.HEADER_LENGTH - TAG_LENGTH)];
+			byte[] t = new byte[TAG_LENGTH];
+			readPayload(channel, c, t);
+			return new SymmetricCrytogram(z, c, t);
+		}
+	}
+
+	/**
+	 * Write an elliptic cryptogram (Z, c, t).
+	 */
+	public static void writeElliptic(final Path file, final EllipticCurveCryptogram cryptogram) throws IOException {
+		checkLength(cryptogram.getT(), TAG_LENGTH, "t");
+		ByteBuffer header = ByteBuffer.allocate(4 + 1 + POINT_LENGTH + 8)
+				.putInt(ELLIPTIC_MAGIC)
+				.put(VERSION)
+				.put(cryptogram.getZ().toCompressed())
+				.putLong(cryptogram.getC().length)
+				.flip();
+		write(file, header, ByteBuffer.wrap(cryptogram.getC()), ByteBuffer.wrap(cryptogram.getT()));
+	}
+
+	/**
+	 * Read an elliptic cryptogram written by writeElliptic.
+	 */
+	public static EllipticCurveCryptogram readElliptic(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			int headerLength = 4 + 1 + POINT_LENGTH + 8;
+			ByteBuffer header = readHeader(channel, ELLIPTIC_MAGIC, VERSION, headerLength);
+			EllipticCurvePoint Z = readPoint(header);
+			long length = header.getLong();
+			if (length < 0 || channel.size() != headerLength + length + TAG_LENGTH) {
+				throw new IOException("Length of c does not match the file size");
+			}
+			byte[] c = new byte[payloadLength(length)];
+			byte[] t = new byte[TAG_LENGTH];
+			readPayload(channel, c, t);
+			return new EllipticCurveCryptogram(Z, c, t);
+		}
+	}
+
+	/**
+	 * Write a public key V.
+	 */
+	public static void writePublicKey(final Path file, final EllipticCurvePoint V) throws IOException {
+		ByteBuffer key = ByteBuffer.allocate(4 + 1 + POINT_LENGTH)
+				.putInt(PUBLIC_KEY_MAGIC)
+				.put(VERSION)
+				.put(V.toCompressed())
+				.flip();
+		write(file, key);
+	}
+
+	/**
+	 * Read a public key written by writePublicKey.
+	 */
+	public static EllipticCurvePoint readPublicKey(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			int length = 4 + 1 + POINT_LENGTH;
+			ByteBuffer key = readHeader(channel, PUBLIC_KEY_MAGIC, VERSION, length);
+			if (channel.size() != length) {
+				throw new IOException("Trailing data after the public key");
+			}
+			return readPoint(key);
+		}
+	}
+
+	/**
+	 * Read whichever of the cryptograms a file holds, looking only at its
+	 * magic to decide.
+	 *
+	 * @return a SymmetricCrytogram or an EllipticCurveCryptogram, or null if
+	 * 		   the file does not start with the magic of either
+	 */
+	public static Object read(final Path file) throws IOException {
+		int magic;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocate(4);
+			if (!SymmetricFileCipher.readFully(channel, buf)) {
+				return null;
+			}
+			magic = buf.getInt(0);
+		}
+		if (magic == SymmetricFileCipher.MAGIC) {
+			return readSymmetric(file);
+		} else if (magic == ELLIPTIC_MAGIC) {
+			return readElliptic(file);
+		}
+		return null;
+	}
+
+	/////// HELPER METHODS /////////
+
+	/**
+	 * Write the buffers, in order, as the whole content of a file.
+	 */
+	private static void write(final Path file, final ByteBuffer... parts) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+													StandardOpenOption.TRUNCATE_EXISTING)) {
+			long remaining = 0;
+			for (ByteBuffer part : parts) {
+				remaining += part.remaining();
+			}
+			while (remaining > 0) {
+				remaining -= channel.write(parts);
+			}
+		}
+	}
+
+	/**
+	 * Read a fixed-size header and check its magic and version.
+	 *
+	 * @return the header, positioned after the version byte
+	 */
+	private static ByteBuffer readHeader(final FileChannel channel, final int magic, final byte version,
+										 final int length) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(length);
+		if (!SymmetricFileCipher.readFully(channel, header)) {
+			throw new EOFException("Truncated header");
+		}
+		header.flip();
+		if (header.getInt() != magic) {
+			throw new IOException("Not a file of the expected kind");
+		}
+		byte found = header.get();
+		if (found != version) {
+			throw new IOException("Unsupported version " + found);
+		}
+		return header;
+	}
+
+	/**
+	 * Read c and then t from the current position of a channel.
+	 */
+	private static void readPayload(final FileChannel channel, final byte[] c, final byte[] t) throws IOException {
+		if (!SymmetricFileCipher.readFully(channel, ByteBuffer.wrap(c))
+				|| !SymmetricFileCipher.readFully(channel, ByteBuffer.wrap(t))) {
+			throw new EOFException("Truncated cryptogram");
+		}
+	}
+
+	/**
+	 * Decode the compressed point at the position of a buffer.
+	 */
+	private static EllipticCurvePoint readPoint(final ByteBuffer buf) throws IOException {
+		byte[] encoded = new byte[POINT_LENGTH];
+		buf.get(encoded);
+		try {
+			return EllipticCurvePoint.fromCompressed(encoded);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid point encoding", e);
+		}
+	}
+
+	/**
+	 * Check that a payload length fits in an array.
+	 */
+	private static int payloadLength(final long length) throws IOException {
+		if (length < 0) {
+			throw new EOFException("Truncated cryptogram");
+		}
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new IOException("Cryptogram too large to be held in memory");
+		}
+		return (int)length;
+	}
+
+	private static void checkLength(final byte[] field, final int length, final String name) {
+		if (field.length != length) {
+			throw new IllegalArgumentException(name + " must be " + length + " bytes long");
+		}
+	}
+}
@@ -4,9 +4,7 @@
 
 import java.awt.FileDialog;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -31,6 +29,11 @@ import javax.swing.JFrame;
 public class Driver {
 	
 	private static Scanner myScanner = new Scanner(System.in);
+	
+	/**
+	 * Security level used for hashing and tagging (options 1, 2 and 5).
+	 */
+	private static SecurityProfile profile = SecurityProfile.fromSystemProperty();
 
 	/**
 	 * The main method that starts the application.
@@ -58,6 +61,9 @@ public class Driver {
 		System.out.println("0) Exit the program.");
 		System.out.println("1) [PART 1] - Compute a plain cryptographic hash of a given file.");
 		System.out.println("2) [PART 1 BONUS]  - Compute a plain cryptographic hash from user text input.");
+		System.out.println("11) [PART 1 EXTRA] - Compute a parallel hash (ParallelHash256) of a given file.");
+		System.out.println("12) [PART 1 EXTRA] - Compute a fast fingerprint (KangarooTwelve KT256) of a given file.");
+		System.out.println("13) Switch the security level of hashing and tagging (currently " + profile.bits() + "-bit).");
 		System.out.println();
 		System.out.println("3) [PART 2] - Encrypt a file symmetrically under a given passphrase.");
 		System.out.println("4) [PART 2] - Decrypt a file symmetrically under a given passphrase.");
@@ -81,7 +87,6 @@ public class Driver {
 		myScanner = new Scanner(System.in);
 		int selection = myScanner.nextInt();
 		
-		HASH hashFunction;
 		SymmetricCrytogram encrypted;
 		byte[] msg = null;
 		FileDialog dialog;
@@ -101,10 +106,8 @@ public class Driver {
 				selected = dialog.getFile();
 				if (selected != null) {
 					try {
-						// bit string message
-						M = Files.readAllBytes(Paths.get(dialog.getDirectory() + selected));
-						hashFunction = new HASH();
-						msg = hashFunction.KMACXOF256("".getBytes(), M, 512, "D".getBytes());
+						// the file is mapped and hashed in place, not read into memory
+						msg = HASH.digestFile(Paths.get(dialog.getDirectory() + selected), profile);
 						System.out.println("HASH RESULT: " + HASH.convertBytesToHex(msg).toUpperCase());
 					} catch (Exception e) {
 						e.printStackTrace();
@@ -120,8 +123,7 @@ public class Driver {
 				System.out.println("\nEnter a string: ");
 				String string = myScanner.nextLine();
 				M = string.getBytes();
-				hashFunction = new HASH();
-				msg = hashFunction.KMACXOF256("".getBytes(), M, 512, "D".getBytes());
+				msg = HASH.KMACXOF(profile, "".getBytes(), M, 2 * profile.bits(), "D".getBytes());
 				System.out.println("HASH RESULT: " + HASH.convertBytesToHex(msg).toUpperCase());
 				break;
 				
@@ -134,20 +136,14 @@ public class Driver {
 				selected = dialog.getFile();
 				if (selected != null) {
 					try {
-						// bit string message
-						M = Files.readAllBytes(Paths.get(dialog.getDirectory() + selected));
-						hashFunction = new HASH();
 						myScanner = new Scanner(System.in);
 						System.out.println("Enter a passphrase: ");
 						String pw = myScanner.nextLine();
-						encrypted = hashFunction.encryptSymmetrically(M, pw.getBytes());
-						ObjectOutputStream output = 
-								new ObjectOutputStream(
-										new FileOutputStream(
-												Paths.get(dialog.getDirectory() + selected).toString()));
-						output.writeObject(encrypted);
-						output.close();
-						System.out.println("ENCRYPTED RESULT: " + HASH.convertBytesToHex(encrypted.byteContext()));
+						// the file is encrypted in place in independent chunks on all cores,
+						// never read into memory
+						Path file = Paths.get(dialog.getDirectory() + selected);
+						SymmetricFileCipher.encryptParallel(file, file, pw.getBytes());
+						System.out.println("THE FILE HAS BEEN ENCRYPTED: " + file);
 						
 					} catch (Exception e) {
 						e.printStackTrace();
@@ -164,14 +160,29 @@ public class Driver {
 				dialog.setVisible(true);
 				selected = dialog.getFile();
 				if (selected != null) {
-					// get symmetric crytogram object
-					encrypted = (SymmetricCrytogram)HASH.readCryptogramFromFile(Paths.get(dialog.getDirectory() + selected).toString());
-					hashFunction = new HASH();
 					myScanner = new Scanner(System.in);
 					System.out.println("Enter a passphrase: ");
 					String pw = myScanner.nextLine();
+					Path file = Paths.get(dialog.getDirectory() + selected);
 					try {
-						msg = hashFunction.decryptSymmetrically(encrypted, pw.getBytes());
+						if (SymmetricFileCipher.isCryptogram(file)) {
+							// streaming or parallel chunked cryptogram, decrypted a chunk at a time
+							if (SymmetricFileCipher.decrypt(file, Paths.get("output.txt"), pw.getBytes())) {
+								System.out.println("DECRYPTED MESSAGE HAS BEEN SAVED TO OUTPUT.TXT");
+							} else {
+								System.out.println("The passphrase is INCORRECT!");
+								System.out.println("Cannot decrypt the file.");
+							}
+							break;
+						}
+					} catch (IOException e) {
+						e.printStackTrace();
+						break;
+					}
+					// older files hold a serialized symmetric crytogram object
+					encrypted = (SymmetricCrytogram)HASH.readCryptogramFromFile(file.toString());
+					try {
+						msg = HASH.decryptSymmetrically(encrypted, pw.getBytes());
 					} catch (IOException e) {
 						// TODO Auto-generated catch block
 						e.printStackTrace();
@@ -199,15 +210,14 @@ public class Driver {
 				if (selected != null) {
 					// bit string message
 					try {
-						M = Files.readAllBytes(Paths.get(dialog.getDirectory() + selected));
+						Path file = Paths.get(dialog.getDirectory() + selected);
 						// get pass-phrase
 						myScanner = new Scanner(System.in);
 						System.out.println("Enter a passphrase: ");
 						String pw = myScanner.nextLine();
 						
-						// t <- KMACXOF256(pw, m, 512, “T”)
-						hashFunction = new HASH();
-						byte[] t = hashFunction.KMACXOF256(pw.getBytes(), M, 512, "T".getBytes());
+						// t <- KMACXOF256(pw, m, 512, “T”) (KMACXOF128(pw, m, 256, “T”) at the 128-bit level)
+						byte[] t = HASH.KMACXOF(profile, pw.getBytes(), file, 2 * profile.bits(), "T".getBytes());
 						System.out.println("Athentication tag: " + HASH.convertBytesToHex(t).toUpperCase());
 					} catch (IOException e) {
 						e.printStackTrace();
@@ -267,8 +277,12 @@ public class Driver {
 				dialog.setVisible(true);
 				selected = dialog.getFile();
 				if (selected != null) {
-					EllipticCurveCryptogram cryptogram = (EllipticCurveCryptogram)HASH.readCryptogramFromFile(Paths.get(dialog.getDirectory() + selected).toString());
-					hashFunction = new HASH();
+					Object read = HASH.readCryptogramFromFile(Paths.get(dialog.getDirectory() + selected).toString());
+					if (!(read instanceof EllipticCurveCryptogram)) {
+						System.out.println("The file is not an elliptic cryptogram.");
+						break;
+					}
+					EllipticCurveCryptogram cryptogram = (EllipticCurveCryptogram)read;
 					myScanner = new Scanner(System.in);
 					System.out.println("Enter a passphrase: ");
 					String pw1 = myScanner.nextLine();
@@ -300,6 +314,51 @@ public class Driver {
 			case 10:
 				break;
 			
+			// [PART 1 EXTRA] Compute a ParallelHash256 of a given file, hashing its blocks on all cores
+			case 11:
+				System.out.println();
+				System.out.println("Select a file");	
+				dialog = new FileDialog(new JFrame(), "Select a file", FileDialog.LOAD);
+				dialog.setVisible(true);
+				selected = dialog.getFile();
+				if (selected != null) {
+					try {
+						msg = ParallelHash256.hash(Paths.get(dialog.getDirectory() + selected),
+												   ParallelHash256.DEFAULT_BLOCK_SIZE, 512, "D".getBytes());
+						System.out.println("PARALLEL HASH RESULT: " + HASH.convertBytesToHex(msg).toUpperCase());
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				} else {
+					System.out.println("User did not select a file.");
+				}
+				break;
+			
+			// [PART 1 EXTRA] Compute a fast KT256 fingerprint of a given file (12-round TurboSHAKE256 tree)
+			case 12:
+				System.out.println();
+				System.out.println("Select a file");	
+				dialog = new FileDialog(new JFrame(), "Select a file", FileDialog.LOAD);
+				dialog.setVisible(true);
+				selected = dialog.getFile();
+				if (selected != null) {
+					try {
+						msg = KangarooTwelve.digest(Paths.get(dialog.getDirectory() + selected), "".getBytes(), 512, true);
+						System.out.println("FINGERPRINT: " + HASH.convertBytesToHex(msg).toUpperCase());
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				} else {
+					System.out.println("User did not select a file.");
+				}
+				break;
+			
+			// Switch between the 128-bit (KMACXOF128) and 256-bit (KMACXOF256) security levels
+			case 13:
+				profile = (profile == SecurityProfile.BITS_256) ? SecurityProfile.BITS_128 : SecurityProfile.BITS_256;
+				System.out.println("Hashing and tagging now use the " + profile.bits() + "-bit security level.");
+				break;
+			
 			default:
 				System.out.println("Not a valid selection.");
 				
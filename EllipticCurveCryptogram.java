@@ -1,16 +1,12 @@
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.IOException;
+import java.nio.file.Paths;
 
 /**
  * Cryptogram of the elliptic curve.
  * 
  * @author Minh Nguyen
  */
-public class EllipticCurveCryptogram implements Serializable {
-	
-	private static final long serialVersionUID = 1607499324027114051L;
+public class EllipticCurveCryptogram {
 	
 	private EllipticCurvePoint Z;
 	private byte[] c;
@@ -35,23 +31,15 @@ public class EllipticCurveCryptogram implements Serializable {
 	}
 	
 	/**
-	 * Write the given cryptogram to file.
-	 * Credit: 
-	 * https://mkyong.com/java/how-to-read-and-write-java-object-to-a-file/
+	 * Write the given cryptogram to the file ENCRYPTED_CRYPTOGRAM, in the
+	 * binary format of CryptogramFiles.
 	 * 
-	 * @param Key
+	 * @param cryptogram
 	 */
 	public static void writeCryptogramToFile(EllipticCurveCryptogram cryptogram) {
 		try {
-			FileOutputStream f = new FileOutputStream(new File("ENCRYPTED_CRYPTOGRAM"));
-			ObjectOutputStream o = new ObjectOutputStream(f);
-			
-			// Write key to file
-			o.writeObject(cryptogram);
-			
-			o.close();
-			f.close();
-		} catch (Exception e) {
+			CryptogramFiles.writeElliptic(Paths.get("ENCRYPTED_CRYPTOGRAM"), cryptogram);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
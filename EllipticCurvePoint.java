@@ -1,10 +1,6 @@
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Paths;
 
 /**
  * The implementation of an Elliptic Curve Point P = (Px, Py).
@@ -16,20 +12,39 @@ import java.math.BigInteger;
  * @author Minh Nguyen
  *
  */
-public class EllipticCurvePoint implements Serializable {
-	
-	private static final long serialVersionUID = 4721945048807566658L;
+public class EllipticCurvePoint {
 
 	/**
-	 * p ≔ 2521 − 1, a Mersenne prime.
+	 * p ≔ 2^521 − 1, a Mersenne prime.
+	 */
+	public static final BigInteger MERESNNE_PRIME = (new BigInteger("2").pow(521)).subtract(BigInteger.ONE);
+	
+	/**
+	 * Length in bytes of a compressed point: the 521 bits of x, with the
+	 * least significant bit of y in the top bit of the first byte.
 	 */
-	public static final BigInteger MERESNNE_PRIME = (new BigInteger("2").pow(251)).subtract(BigInteger.ONE);
+	public static final int ENCODED_LENGTH = 66;
 	
+	/**
+	 * Affine coordinates, computed from the extended ones on first use.
+	 */
 	private BigInteger myX;
 	private BigInteger myY;
 	
+	/**
+	 * Extended coordinates (X:Y:Z:T), with x = X/Z, y = Y/Z and xy = T/Z, in
+	 * which points are added and doubled without any inversion. Never
+	 * modified once the point is constructed.
+	 */
+	private final Extended myP;
+	
 	public static final BigInteger D = new BigInteger("-376014");
 	
+	/**
+	 * d as a field element.
+	 */
+	private static final FieldElement D_FIELD = new FieldElement(D);
+	
 	
 	/**
 	 * Construct an elliptic curve point from given (x, y).
@@ -40,6 +55,14 @@ public class EllipticCurvePoint implements Serializable {
 	public EllipticCurvePoint(final BigInteger x, final BigInteger y) {
 		myX = x;
 		myY = y;
+		myP = new Extended(x, y);
+	}
+	
+	/**
+	 * Construct a point from its extended coordinates, taking ownership of them.
+	 */
+	EllipticCurvePoint(final Extended theP) {
+		myP = theP;
 	}
 	
 	/**
@@ -53,29 +76,75 @@ public class EllipticCurvePoint implements Serializable {
 	 * Constructor for a curve point from its 𝑥 coordinate and the least significant bit of y.
 	 * 
 	 * y = +/- sqrt((1 - x^2) / (1 + 376014x^2)) mod p
+	 * 
+	 * @throws IllegalArgumentException if no point of the curve has this x.
 	 */
 	public EllipticCurvePoint(final BigInteger theX, boolean lsb) {
+		this(theX.mod(MERESNNE_PRIME), decompress(theX, lsb));
+	}
+	
+	/**
+	 * y = +/- sqrt((1 - x^2) / (1 + 376014x^2)) mod p, with the given least significant bit.
+	 */
+	private static BigInteger decompress(final BigInteger theX, final boolean lsb) {
+		BigInteger x2 = theX.pow(2);
+		
 		// (1 - x^2)
-		BigInteger numerator = BigInteger.ONE.subtract(theX.pow(2));
+		BigInteger numerator = BigInteger.ONE.subtract(x2);
 		
 		// (1 + 376014x^2)
-		BigInteger denominator = BigInteger.ONE.add((new BigInteger("376014")).multiply(theX.pow(2)));
+		BigInteger denominator = BigInteger.ONE.add((new BigInteger("376014")).multiply(x2));
 		
-		// (1 - x^2) / (1 + 376014x^2)
-		BigInteger n_d = numerator.divide(denominator);
+		// (1 - x^2) / (1 + 376014x^2) mod p
+		BigInteger n_d = modInverse(numerator, denominator);
 		
 		//  sqrt((1 - x^2) / (1 + 376014x^2))
 		BigInteger sqRoot = sqrt(n_d, MERESNNE_PRIME, lsb);
-				
-		myX = theX;
-		myY = sqRoot.mod(MERESNNE_PRIME);;
+		if (sqRoot == null) {
+			throw new IllegalArgumentException("No point of the curve has x = " + theX);
+		}
+		return sqRoot.mod(MERESNNE_PRIME);
+	}
+	
+	/**
+	 * Decode a compressed point written by toCompressed.
+	 * 
+	 * @throws IllegalArgumentException if the bytes are not a point of the curve.
+	 */
+	public static EllipticCurvePoint fromCompressed(final byte[] encoded) {
+		if (encoded.length != ENCODED_LENGTH) {
+			throw new IllegalArgumentException("A compressed point is " + ENCODED_LENGTH + " bytes long");
+		}
+		byte[] x = encoded.clone();
+		boolean lsb = (x[0] & 0x80) != 0;
+		x[0] &= 0x7F;
+		BigInteger theX = new BigInteger(1, x);
+		if (theX.compareTo(MERESNNE_PRIME) >= 0) {
+			throw new IllegalArgumentException("x is not reduced mod p");
+		}
+		return new EllipticCurvePoint(theX, lsb);
+	}
+	
+	/**
+	 * Compressed encoding of this point: x as ENCODED_LENGTH big-endian bytes,
+	 * with the least significant bit of y in the top bit.
+	 */
+	public byte[] toCompressed() {
+		byte[] out = new byte[ENCODED_LENGTH];
+		byte[] x = getX().toByteArray();
+		int n = Math.min(x.length, ENCODED_LENGTH);		// drop the sign byte, if any
+		System.arraycopy(x, x.length - n, out, ENCODED_LENGTH - n, n);
+		if (getY().testBit(0)) {
+			out[0] |= (byte)0x80;
+		}
+		return out;
 	}
 	
 	/**
 	 * Opposite of a point (x, y) is the point (-x, y).
 	 */
 	public EllipticCurvePoint oppositePoint(final BigInteger x, final BigInteger y) {
-		return new EllipticCurvePoint(x.multiply(new BigInteger("-1")), y);
+		return new EllipticCurvePoint(x.negate().mod(MERESNNE_PRIME), y);
 	}
 	
 	/** Compare points for equality.
@@ -85,46 +154,66 @@ public class EllipticCurvePoint implements Serializable {
 	 * @return whether p1 = p2
 	 */
 	public boolean isEqualPoint(final EllipticCurvePoint p1, final EllipticCurvePoint p2) {
-		return p1.myX.equals(p2.myX) && p1.myY.equals(p2.myY);
+		// X1 / Z1 = X2 / Z2 and Y1 / Z1 = Y2 / Z2, without inverting Z1 or Z2
+		Extended a = p1.myP;
+		Extended b = p2.myP;
+		FieldElement l = new FieldElement();
+		FieldElement r = new FieldElement();
+		return l.multiply(a.x, b.z).toBigInteger().equals(r.multiply(b.x, a.z).toBigInteger())
+				&& l.multiply(a.y, b.z).toBigInteger().equals(r.multiply(b.y, a.z).toBigInteger());
 	}
 	
 	/**
 	 * Given any two points (𝑥1, 𝑦1) and (𝑥2, 𝑦2) on the curve 𝐸521, 
 	 * their sum is the point (𝑥1, 𝑦1) + (𝑥2, 𝑦2) = (𝑥1𝑦2+𝑦1𝑥2 / 1+𝑑𝑥1𝑥2𝑦1𝑦2, 𝑦1𝑦2−𝑥1𝑥2 / 1−𝑑𝑥1𝑥2𝑦1𝑦2). 
+	 * 
+	 * It is computed in extended coordinates with the unified formulas of
+	 * Hisil, Wong, Carter and Dawson for a = 1, which need no inversion and,
+	 * as d is not a square mod p, hold for every pair of points (doubling
+	 * included):
+	 * 
+	 * A = X1X2, B = Y1Y2, C = dT1T2, D = Z1Z2, E = (X1 + Y1)(X2 + Y2) − A − B,
+	 * F = D − C, G = D + C, H = B − A, (X3 : Y3 : Z3 : T3) = (EF : GH : FG : EH)
+	 * 
 	 * @param p2 is the other point
 	 * @return sum of the points
 	 */
 	public EllipticCurvePoint sumOfPoints(final EllipticCurvePoint p2) {
-		BigInteger x1 = this.myX;
-		BigInteger y1 = this.myY;
-		BigInteger x2 = p2.getX();
-		BigInteger y2 = p2.getY();
-		
-		BigInteger numeratorX = (x1.multiply(y2)).add((y1.multiply(x2)));
-		BigInteger denomX = BigInteger.ONE.add((D.multiply(x1).multiply(x2).multiply(y1).multiply(y2)));
-		BigInteger numeratorY = (y1.multiply(y2)).subtract((x1.multiply(x2)));
-		BigInteger denomY = (BigInteger.ONE.subtract((D.multiply(x1).multiply(x2).multiply(y1).multiply(y2))));
-		
-		return new EllipticCurvePoint(modInverse(numeratorX, denomX), modInverse(numeratorY, denomY));
+		Extended sum = new Extended(myP);
+		sum.add(p2.myP);
+		return new EllipticCurvePoint(sum);
+	}
+	
+	/**
+	 * The opposite of this point, (-X : Y : Z : -T).
+	 */
+	EllipticCurvePoint negate() {
+		Extended opposite = new Extended(myP);
+		opposite.negate();
+		return new EllipticCurvePoint(opposite);
 	}
 	
 	/**
 	 * "Exponentiation" algorithm (elliptic curve version).
+	 * A negative s multiplies the opposite point: s * G = (-s) * (-G).
+	 * The loop works in place on one extended point and allocates nothing.
 	 */
 	public static EllipticCurvePoint multiplyPoint(BigInteger s, EllipticCurvePoint G) {
-		// get binary string of s
-		String x = s.toString(2);			//x=(xk, xk-1, ... , x1, x0)2, xk = 1
-		int k = x.length();
-		EllipticCurvePoint Y = G;			// Y <- G
+		if (s.signum() < 0) {
+			return multiplyPoint(s.negate(), G.negate());
+		}
+		// s = (sk, sk-1, ... , s1, s0)2, sk = 1
+		int k = s.bitLength();
+		Extended Y = new Extended();		// Y <- O
 		
 		// for i <- k – 1 to 0 by -1:
 		for (int i = k - 1; i >= 0; i--) {
-			Y = Y.sumOfPoints(Y);				// Y <- Y + Y
-			if (x.charAt(i) == '1') {			// if xi == 1: Y <- Y + G
-				Y = Y.sumOfPoints(G);
+			Y.twice();							// Y <- Y + Y
+			if (s.testBit(i)) {					// if si == 1: Y <- Y + G
+				Y.add(G.myP);
 			}
 		}
-		return Y;							// Y = x * G
+		return new EllipticCurvePoint(Y);	// Y = s * G, still in extended coordinates
 	}
 	
 	/**
@@ -156,6 +245,9 @@ public class EllipticCurvePoint implements Serializable {
 	 * Getter for x.
 	 */
 	public BigInteger getX() {
+		if (myX == null) {
+			toAffine();
+		}
 		return myX;
 	}
 	
@@ -163,9 +255,29 @@ public class EllipticCurvePoint implements Serializable {
 	 * Getter for y.
 	 */
 	public BigInteger getY() {
+		if (myY == null) {
+			toAffine();
+		}
 		return myY;
 	}
 	
+	/**
+	 * The extended coordinates of this point, which must not be modified.
+	 */
+	Extended extended() {
+		return myP;
+	}
+	
+	/**
+	 * Convert a computed point to affine coordinates, x = X/Z and y = Y/Z,
+	 * with the only inversion of its computation.
+	 */
+	private void toAffine() {
+		FieldElement zInverse = new FieldElement().invert(myP.z);
+		myY = new FieldElement().multiply(myP.y, zInverse).toBigInteger();
+		myX = new FieldElement().multiply(myP.x, zInverse).toBigInteger();
+	}
+	
 	/**
 	 * Modular inverse.
 	 * 
@@ -173,50 +285,170 @@ public class EllipticCurvePoint implements Serializable {
 	 * @param bot
 	 * @return modular inverse with MERESNNE_PRIME.
 	 */
-	private BigInteger modInverse(BigInteger top, BigInteger bot) {
+	private static BigInteger modInverse(BigInteger top, BigInteger bot) {
 		return top.multiply(bot.modInverse(MERESNNE_PRIME)).mod(MERESNNE_PRIME);
 	}
 	
 	/**
-	 * Write the given elliptic key to file.
-	 * Credit: 
-	 * https://mkyong.com/java/how-to-read-and-write-java-object-to-a-file/
+	 * Write the given elliptic key to the file GENERATED_PUBLIC_KEY, in the
+	 * binary format of CryptogramFiles.
 	 * 
 	 * @param Key
 	 */
 	public static void writeKeyToFile(EllipticCurvePoint Key) {
 		try {
-			FileOutputStream f = new FileOutputStream(new File("GENERATED_PUBLIC_KEY"));
-			ObjectOutputStream o = new ObjectOutputStream(f);
-			
-			// Write key to file
-			o.writeObject(Key);
-			
-			o.close();
-			f.close();
-		} catch (Exception e) {
+			CryptogramFiles.writePublicKey(Paths.get("GENERATED_PUBLIC_KEY"), Key);
+		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 	
 	/**
-	 * Read an elliptic key from a file.
+	 * Read an elliptic key from a file written by writeKeyToFile. Keys
+	 * serialized by earlier versions are not accepted: they were computed on
+	 * the wrong curve.
+	 * 
+	 * @return the key, or null if the file could not be read.
 	 */
 	public static EllipticCurvePoint readKeyFromFile(final String fileName) {
 		EllipticCurvePoint key = null;
 		try {
-		FileInputStream fi = new FileInputStream(new File(fileName));
-		ObjectInputStream oi = new ObjectInputStream(fi);
+			key = CryptogramFiles.readPublicKey(Paths.get(fileName));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return key;
+	}
+	
+	/**
+	 * A mutable point in extended coordinates (X:Y:Z:T) over FieldElement,
+	 * with its own scratch elements, so that adding and doubling in place
+	 * allocate nothing.
+	 */
+	static final class Extended {
 		
-		// Read key 
-		key = (EllipticCurvePoint) oi.readObject();
+		final FieldElement x;
+		final FieldElement y;
+		final FieldElement z;
+		final FieldElement t;
 		
-		fi.close();
-		oi.close();
+		private final FieldElement a = new FieldElement();
+		private final FieldElement b = new FieldElement();
+		private final FieldElement c = new FieldElement();
+		private final FieldElement d = new FieldElement();
+		private final FieldElement e = new FieldElement();
+		private final FieldElement f = new FieldElement();
+		private final FieldElement g = new FieldElement();
+		private final FieldElement h = new FieldElement();
 		
-		} catch (Exception e) {
-			e.printStackTrace();
+		/**
+		 * Construct the neutral point O = (0 : 1 : 1 : 0).
+		 */
+		Extended() {
+			x = new FieldElement();
+			y = new FieldElement().set(1);
+			z = new FieldElement().set(1);
+			t = new FieldElement();
+		}
+		
+		/**
+		 * Construct the point (x : y : 1 : xy) from affine coordinates.
+		 */
+		Extended(final BigInteger theX, final BigInteger theY) {
+			x = new FieldElement(theX);
+			y = new FieldElement(theY);
+			z = new FieldElement().set(1);
+			t = new FieldElement().multiply(x, y);
+		}
+		
+		/**
+		 * Construct a copy of another point.
+		 */
+		Extended(final Extended other) {
+			x = new FieldElement(other.x);
+			y = new FieldElement(other.y);
+			z = new FieldElement(other.z);
+			t = new FieldElement(other.t);
+		}
+		
+		/**
+		 * this <- other
+		 */
+		void set(final Extended other) {
+			x.set(other.x);
+			y.set(other.y);
+			z.set(other.z);
+			t.set(other.t);
+		}
+		
+		/**
+		 * this <- this + q, with the unified formulas (q may be this).
+		 */
+		void add(final Extended q) {
+			a.multiply(x, q.x);								// A = X1X2
+			b.multiply(y, q.y);								// B = Y1Y2
+			c.multiply(t, q.t).multiply(c, D_FIELD);		// C = dT1T2
+			d.multiply(z, q.z);								// D = Z1Z2
+			e.add(x, y);
+			f.add(q.x, q.y);
+			e.multiply(e, f).subtract(e, a).subtract(e, b);	// E = (X1 + Y1)(X2 + Y2) − A − B
+			f.subtract(d, c);								// F = D − C
+			g.add(d, c);									// G = D + C
+			h.subtract(b, a);								// H = B − A
+			finish();
+		}
+		
+		/**
+		 * this <- this + q for a point q = (x2, y2) with Z2 = 1 stored in a
+		 * table at off as x2 || y2 || x2 + y2 || dx2y2, nine limbs each, which
+		 * saves the multiplications by Z2 and by d.
+		 */
+		void addAffine(final long[] q, final int off) {
+			final int n = FieldElement.LIMBS;
+			a.multiply(x, q, off);							// A = X1x2
+			b.multiply(y, q, off + n);						// B = Y1y2
+			c.multiply(t, q, off + 3 * n);					// C = T1(dx2y2)
+			d.set(z);										// D = Z1
+			e.add(x, y).multiply(e, q, off + 2 * n)
+			 .subtract(e, a).subtract(e, b);				// E = (X1 + Y1)(x2 + y2) − A − B
+			f.subtract(d, c);								// F = D − C
+			g.add(d, c);									// G = D + C
+			h.subtract(b, a);								// H = B − A
+			finish();
+		}
+		
+		/**
+		 * this <- this + this, with the dedicated doubling formulas.
+		 */
+		void twice() {
+			a.square(x);									// A = X1^2
+			b.square(y);									// B = Y1^2
+			c.square(z);
+			c.add(c, c);									// C = 2Z1^2
+			e.add(x, y);
+			e.square(e).subtract(e, a).subtract(e, b);		// E = (X1 + Y1)^2 − A − B
+			g.add(a, b);									// G = A + B
+			f.subtract(g, c);								// F = G − C
+			h.subtract(a, b);								// H = A − B
+			finish();
+		}
+		
+		/**
+		 * this <- −this = (−X : Y : Z : −T)
+		 */
+		void negate() {
+			x.negate(x);
+			t.negate(t);
+		}
+		
+		/**
+		 * (X3 : Y3 : Z3 : T3) = (EF : GH : FG : EH)
+		 */
+		private void finish() {
+			x.multiply(e, f);
+			y.multiply(g, h);
+			z.multiply(f, g);
+			t.multiply(e, h);
 		}
-		return key;
 	}
 }
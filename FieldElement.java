@@ -0,0 +1,294 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.math.BigInteger;
+
+/**
+ * A mutable element of GF(p), p = 2^521 − 1, the field of the curve E521.
+ *
+ * The value is kept in nine limbs of radix 2^58, the top one holding 57
+ * bits, and is only reduced to its canonical form when converted back to a
+ * BigInteger. Since p is a Mersenne prime, 2^521 = 1 (mod p) and
+ * 2^522 = 2 (mod p), so the high half of a product folds back onto the low
+ * half with a shift instead of a division.
+ *
+ * Every operation writes its result into this element and returns it, and
+ * its operands may be this element itself. No operation but invert
+ * allocates; each element has its own scratch columns, so an element may
+ * be read by several threads but only written by one.
+ *
+ * Limb bounds between operations: limb 0 and 1 below 2^58 + 2^7, limbs 2
+ * to 7 below 2^58, limb 8 below 2^57. The 81 partial products of a
+ * multiplication are then at most 35 * 2^58 per column, which fits in an
+ * unsigned long.
+ *
+ * @author Minh Nguyen
+ */
+final class FieldElement {
+
+	/**
+	 * Number of limbs.
+	 */
+	static final int LIMBS = 9;
+
+	private static final int BITS = 58;
+	private static final long MASK = (1L << BITS) - 1;
+	private static final long TOP_MASK = (1L << 57) - 1;
+
+	/**
+	 * 4p, limb by limb, added before a subtraction so that no limb goes negative.
+	 */
+	private static final long FOUR_P = (MASK << 2);
+	private static final long FOUR_P_TOP = (TOP_MASK << 2);
+
+	/**
+	 * p = 2^521 − 1
+	 */
+	private static final BigInteger P = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+
+	final long[] limbs = new long[LIMBS];
+
+	/**
+	 * Unreduced columns of a product, before carrying.
+	 */
+	private final long[] columns = new long[LIMBS];
+
+	/**
+	 * Construct the element 0.
+	 */
+	FieldElement() {
+		// DO NOTHING
+	}
+
+	/**
+	 * Construct the element v mod p.
+	 */
+	FieldElement(final BigInteger v) {
+		BigInteger r = v.mod(P);
+		for (int i = 0; i < LIMBS; i++) {
+			limbs[i] = r.longValue() & MASK;
+			r = r.shiftRight(BITS);
+		}
+	}
+
+	/**
+	 * Construct a copy of another element.
+	 */
+	FieldElement(final FieldElement other) {
+		set(other);
+	}
+
+	/**
+	 * this <- a
+	 */
+	FieldElement set(final FieldElement a) {
+		System.arraycopy(a.limbs, 0, limbs, 0, LIMBS);
+		return this;
+	}
+
+	/**
+	 * this <- v, for 0 <= v < 2^58
+	 */
+	FieldElement set(final long v) {
+		limbs[0] = v;
+		for (int i = 1; i < LIMBS; i++) {
+			limbs[i] = 0;
+		}
+		return this;
+	}
+
+	/**
+	 * this <- a + b
+	 */
+	FieldElement add(final FieldElement a, final FieldElement b) {
+		long[] x = a.limbs;
+		long[] y = b.limbs;
+		long[] c = columns;
+		for (int i = 0; i < LIMBS; i++) {
+			c[i] = x[i] + y[i];
+		}
+		return carry();
+	}
+
+	/**
+	 * this <- a − b
+	 */
+	FieldElement subtract(final FieldElement a, final FieldElement b) {
+		long[] x = a.limbs;
+		long[] y = b.limbs;
+		long[] c = columns;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			c[i] = x[i] + FOUR_P - y[i];
+		}
+		c[LIMBS - 1] = x[LIMBS - 1] + FOUR_P_TOP - y[LIMBS - 1];
+		return carry();
+	}
+
+	/**
+	 * this <- −a
+	 */
+	FieldElement negate(final FieldElement a) {
+		long[] x = a.limbs;
+		long[] c = columns;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			c[i] = FOUR_P - x[i];
+		}
+		c[LIMBS - 1] = FOUR_P_TOP - x[LIMBS - 1];
+		return carry();
+	}
+
+	/**
+	 * this <- a * b
+	 *
+	 * Each 116-bit partial product x_i * y_j is split at bit 58; the low part
+	 * goes to column i + j and the high part to column i + j + 1, and a
+	 * column k >= 9 is added, doubled, to column k − 9.
+	 */
+	FieldElement multiply(final FieldElement a, final FieldElement b) {
+		return multiply(a.limbs, b.limbs, 0);
+	}
+
+	/**
+	 * this <- a * b, with the limbs of b read from an array at off.
+	 */
+	FieldElement multiply(final FieldElement a, final long[] b, final int off) {
+		return multiply(a.limbs, b, off);
+	}
+
+	private FieldElement multiply(final long[] x, final long[] y, final int off) {
+		long[] c = columns;
+		for (int k = 0; k < LIMBS; k++) {
+			c[k] = 0;
+		}
+		for (int i = 0; i < LIMBS; i++) {
+			long xi = x[i];
+			for (int j = 0; j < LIMBS; j++) {
+				accumulate(c, i + j, xi, y[off + j]);
+			}
+		}
+		return carry();
+	}
+
+	/**
+	 * this <- a^2, with each cross product computed once and doubled.
+	 */
+	FieldElement square(final FieldElement a) {
+		long[] x = a.limbs;
+		long[] c = columns;
+		for (int k = 0; k < LIMBS; k++) {
+			c[k] = 0;
+		}
+		for (int i = 0; i < LIMBS; i++) {
+			long xi = x[i];
+			accumulate(c, 2 * i, xi, xi);
+			long xi2 = xi << 1;
+			for (int j = i + 1; j < LIMBS; j++) {
+				accumulate(c, i + j, xi2, x[j]);
+			}
+		}
+		return carry();
+	}
+
+	/**
+	 * this <- a^(2^n)
+	 */
+	FieldElement squareTimes(final FieldElement a, final int n) {
+		square(a);
+		for (int i = 1; i < n; i++) {
+			square(this);
+		}
+		return this;
+	}
+
+	/**
+	 * this <- a^(−1) = a^(p − 2), by an addition chain of 520 squarings and
+	 * 14 multiplications. The inverse of 0 is 0.
+	 *
+	 * With t_k = a^(2^k − 1), so that t_(m+n) = (t_m)^(2^n) * t_n, the chain
+	 * builds t_519, and a^(p − 2) = a^(2^521 − 3) = (t_519)^4 * a.
+	 */
+	FieldElement invert(final FieldElement a) {
+		FieldElement t1 = new FieldElement(a);
+		FieldElement t2 = chain(t1, 1, t1);
+		FieldElement t3 = chain(t2, 1, t1);
+		FieldElement t6 = chain(t3, 3, t3);
+		FieldElement t7 = chain(t6, 1, t1);
+		FieldElement t14 = chain(t7, 7, t7);
+		FieldElement t28 = chain(t14, 14, t14);
+		FieldElement t56 = chain(t28, 28, t28);
+		FieldElement t112 = chain(t56, 56, t56);
+		FieldElement t224 = chain(t112, 112, t112);
+		FieldElement t448 = chain(t224, 224, t224);
+		FieldElement t504 = chain(t448, 56, t56);
+		FieldElement t518 = chain(t504, 14, t14);
+		FieldElement t519 = chain(t518, 1, t1);
+		return squareTimes(t519, 2).multiply(this, t1);
+	}
+
+	/**
+	 * @return a new element t^(2^n) * u
+	 */
+	private static FieldElement chain(final FieldElement t, final int n, final FieldElement u) {
+		FieldElement r = new FieldElement().squareTimes(t, n);
+		return r.multiply(r, u);
+	}
+
+	/**
+	 * Copy the limbs into an array at off.
+	 */
+	void copyTo(final long[] dst, final int off) {
+		System.arraycopy(limbs, 0, dst, off, LIMBS);
+	}
+
+	/**
+	 * @return the canonical value in [0, p).
+	 */
+	BigInteger toBigInteger() {
+		BigInteger v = BigInteger.ZERO;
+		for (int i = LIMBS - 1; i >= 0; i--) {
+			v = v.shiftLeft(BITS).add(BigInteger.valueOf(limbs[i]));
+		}
+		return v.mod(P);
+	}
+
+	/**
+	 * Add the product x * y, of at most 117 bits, to the columns k and k + 1,
+	 * folding columns from 9 up onto column − 9 with a factor 2.
+	 */
+	private static void accumulate(final long[] c, final int k, final long x, final long y) {
+		long lo = x * y;
+		long hi = Math.multiplyHigh(x, y);
+		long low = lo & MASK;
+		long high = (hi << (64 - BITS)) | (lo >>> BITS);
+		if (k < LIMBS) {
+			c[k] += low;
+		} else {
+			c[k - LIMBS] += low << 1;
+		}
+		if (k + 1 < LIMBS) {
+			c[k + 1] += high;
+		} else {
+			c[k + 1 - LIMBS] += high << 1;
+		}
+	}
+
+	/**
+	 * Carry the columns, read as unsigned, into the limbs: bits from 521 up
+	 * are added back at the bottom, since 2^521 = 1 (mod p).
+	 */
+	private FieldElement carry() {
+		long[] c = columns;
+		for (int i = 0; i < LIMBS - 1; i++) {
+			c[i + 1] += c[i] >>> BITS;
+			c[i] &= MASK;
+		}
+		long top = c[LIMBS - 1] >>> 57;
+		c[LIMBS - 1] &= TOP_MASK;
+		c[0] += top;
+		c[1] += c[0] >>> BITS;
+		c[0] &= MASK;
+		System.arraycopy(c, 0, limbs, 0, LIMBS);
+		return this;
+	}
+}
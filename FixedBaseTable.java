@@ -0,0 +1,132 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.math.BigInteger;
+
+/**
+ * Precomputed multiples of a fixed point P for fixed-base scalar
+ * multiplication with 4-bit windows.
+ *
+ * Window i of the table holds j * 2^(4i) * P for j = 1 .. 15, so that with
+ * s = sum of s_i * 2^(4i), s_i in [0, 16),
+ *
+ * s * P = sum of (s_i * 2^(4i) * P)
+ *
+ * takes one table addition per nonzero window and no doubling at all,
+ * about 130 additions for a 521-bit scalar against about 520 doublings and
+ * 260 additions for double-and-add.
+ *
+ * The entries are brought to Z = 1 with a single batch inversion and
+ * stored flat as x || y || x + y || dxy (see EllipticCurvePoint.Extended
+ * .addAffine), about 570 KB for the 131 windows covering 524 bits. The
+ * table is read-only once built and may be shared between threads.
+ *
+ * @author Minh Nguyen
+ */
+final class FixedBaseTable {
+
+	/**
+	 * Width of a window in bits.
+	 */
+	static final int WINDOW = 4;
+
+	/**
+	 * Number of windows: enough for any scalar below 2^524.
+	 */
+	static final int WINDOWS = 131;
+
+	/**
+	 * Number of entries per window, the nonzero digits.
+	 */
+	private static final int DIGITS = (1 << WINDOW) - 1;
+
+	private static final int LIMBS = FieldElement.LIMBS;
+
+	/**
+	 * Number of longs per entry: x, y, x + y and dxy.
+	 */
+	private static final int ENTRY = 4 * LIMBS;
+
+	private final EllipticCurvePoint base;
+	private final long[] table;
+
+	/**
+	 * Build the table of a point.
+	 */
+	FixedBaseTable(final EllipticCurvePoint P) {
+		base = P;
+		int n = WINDOWS * DIGITS;
+
+		// points[i * 15 + j − 1] <- j * 2^(4i) * P
+		EllipticCurvePoint.Extended[] points = new EllipticCurvePoint.Extended[n];
+		EllipticCurvePoint.Extended row = new EllipticCurvePoint.Extended(P.extended());
+		EllipticCurvePoint.Extended sum = new EllipticCurvePoint.Extended();
+		for (int i = 0; i < WINDOWS; i++) {
+			sum.set(row);
+			points[i * DIGITS] = new EllipticCurvePoint.Extended(sum);
+			for (int j = 1; j < DIGITS; j++) {
+				sum.add(row);
+				points[i * DIGITS + j] = new EllipticCurvePoint.Extended(sum);
+			}
+			for (int k = 0; k < WINDOW; k++) {
+				row.twice();
+			}
+		}
+
+		// batch inversion of the Z coordinates: prefix[k] = Z_0 * .. * Z_k
+		FieldElement[] prefix = new FieldElement[n];
+		prefix[0] = new FieldElement(points[0].z);
+		for (int k = 1; k < n; k++) {
+			prefix[k] = new FieldElement().multiply(prefix[k - 1], points[k].z);
+		}
+		FieldElement inverse = new FieldElement().invert(prefix[n - 1]);
+
+		FieldElement d = new FieldElement(EllipticCurvePoint.D);
+		FieldElement zInverse = new FieldElement();
+		FieldElement x = new FieldElement();
+		FieldElement y = new FieldElement();
+		FieldElement scratch = new FieldElement();
+		table = new long[n * ENTRY];
+		for (int k = n - 1; k >= 0; k--) {
+			// inverse = (Z_0 * .. * Z_k)^(−1)
+			if (k > 0) {
+				zInverse.multiply(inverse, prefix[k - 1]);
+				inverse.multiply(inverse, points[k].z);
+			} else {
+				zInverse.set(inverse);
+			}
+			int off = k * ENTRY;
+			x.multiply(points[k].x, zInverse).copyTo(table, off);
+			y.multiply(points[k].y, zInverse).copyTo(table, off + LIMBS);
+			scratch.add(x, y).copyTo(table, off + 2 * LIMBS);
+			scratch.multiply(x, y).multiply(scratch, d).copyTo(table, off + 3 * LIMBS);
+		}
+	}
+
+	/**
+	 * @return s * P
+	 */
+	EllipticCurvePoint multiply(final BigInteger s) {
+		if (s.signum() < 0) {
+			return multiply(s.negate()).negate();
+		}
+		if (s.bitLength() > WINDOWS * WINDOW) {
+			return EllipticCurvePoint.multiplyPoint(s, base);
+		}
+		EllipticCurvePoint.Extended Y = new EllipticCurvePoint.Extended();		// Y <- O
+		int windows = (s.bitLength() + WINDOW - 1) / WINDOW;
+		for (int i = 0; i < windows; i++) {
+			int digit = 0;
+			for (int b = 0; b < WINDOW; b++) {
+				if (s.testBit(i * WINDOW + b)) {
+					digit |= 1 << b;
+				}
+			}
+			if (digit != 0) {									// Y <- Y + s_i * 2^(4i) * P
+				Y.addAffine(table, (i * DIGITS + digit - 1) * ENTRY);
+			}
+		}
+		return new EllipticCurvePoint(Y);
+	}
+}
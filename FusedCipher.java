@@ -0,0 +1,207 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass encrypt-and-tag.
+ *
+ * A KMACXOF keystream sponge and a KMACXOF tag sponge are run side by side
+ * over the data one rate-sized block at a time, so each block is XORed and
+ * absorbed while it is still in cache instead of walking the whole message
+ * twice. The output is identical to the two-pass
+ *
+ * c <- KMACXOF(ke, “”, |m|, S1) XOR m
+ * t <- KMACXOF(ka, m, L, S2)
+ *
+ * The tag always covers the plaintext: encrypt absorbs a block before XORing
+ * it, decrypt after. in and out may be the same array (at the same offset).
+ *
+ * @author Minh Nguyen
+ */
+final class FusedCipher {
+
+	private final KmacXofStream keystream;
+	private final KmacXofStream tag;
+
+	/**
+	 * Rate of both sponges in bytes.
+	 */
+	private final int block;
+
+	/**
+	 * Number of bytes processed so far, to keep the steps block-aligned
+	 * across calls.
+	 */
+	private long processed;
+
+	/**
+	 * Construct a fused cipher from two initialized streams.
+	 *
+	 * @param theKeystream the keystream, with its whole input absorbed
+	 * @param theTag the tag stream, which will absorb the plaintext
+	 */
+	FusedCipher(final KmacXofStream theKeystream, final KmacXofStream theTag) {
+		if (theKeystream.profile != theTag.profile) {
+			throw new IllegalArgumentException("Keystream and tag use different security profiles");
+		}
+		keystream = theKeystream;
+		tag = theTag;
+		block = theTag.profile.rate();
+	}
+
+	/**
+	 * One-shot KMACXOF256 encrypt-and-tag of a whole array, on pooled streams:
+	 * out <- KMACXOF256(ke, “”, |in|, S1) XOR in, t <- KMACXOF256(ka, in, L, S2)
+	 *
+	 * @return the tag t
+	 */
+	static byte[] encrypt(final byte[] ke, final byte[] S1, final byte[] ka, final byte[] S2,
+						  final byte[] in, final byte[] out, final int L) {
+		return pooled(ke, S1, ka, S2, L, cipher -> cipher.encrypt(in, 0, out, 0, in.length));
+	}
+
+	/**
+	 * One-shot KMACXOF256 decrypt-and-tag of a whole array, on pooled streams:
+	 * out <- KMACXOF256(ke, “”, |in|, S1) XOR in, t' <- KMACXOF256(ka, out, L, S2)
+	 *
+	 * @return the tag t'
+	 */
+	static byte[] decrypt(final byte[] ke, final byte[] S1, final byte[] ka, final byte[] S2,
+						  final byte[] in, final byte[] out, final int L) {
+		return pooled(ke, S1, ka, S2, L, cipher -> cipher.decrypt(in, 0, out, 0, in.length));
+	}
+
+	/**
+	 * One-shot KMACXOF256 encrypt-and-tag of the remaining bytes of a buffer,
+	 * on pooled streams. Both buffers are advanced.
+	 *
+	 * @return the tag t
+	 */
+	static byte[] encrypt(final byte[] ke, final byte[] S1, final byte[] ka, final byte[] S2,
+						  final ByteBuffer in, final ByteBuffer out, final int L) {
+		return pooled(ke, S1, ka, S2, L, cipher -> cipher.encrypt(in, out));
+	}
+
+	/**
+	 * One-shot KMACXOF256 decrypt-and-tag of the remaining bytes of a buffer,
+	 * on pooled streams. Both buffers are advanced.
+	 *
+	 * @return the tag t'
+	 */
+	static byte[] decrypt(final byte[] ke, final byte[] S1, final byte[] ka, final byte[] S2,
+						  final ByteBuffer in, final ByteBuffer out, final int L) {
+		return pooled(ke, S1, ka, S2, L, cipher -> cipher.decrypt(in, out));
+	}
+
+	private static byte[] pooled(final byte[] ke, final byte[] S1, final byte[] ka, final byte[] S2,
+								 final int L, final Consumer<FusedCipher> body) {
+		KmacXofStream keystream = StreamPool.kmac(SecurityProfile.BITS_256, ke, S1);
+		KmacXofStream tag = StreamPool.kmac(SecurityProfile.BITS_256, ka, S2);
+		try {
+			FusedCipher cipher = new FusedCipher(keystream, tag);
+			body.accept(cipher);
+			return cipher.tag(L);
+		} finally {
+			StreamPool.release(tag);
+			StreamPool.release(keystream);
+		}
+	}
+
+	/**
+	 * out <- keystream XOR in, with in absorbed into the tag.
+	 */
+	void encrypt(final byte[] in, int inOff, final byte[] out, int outOff, int len) {
+		while (len > 0) {
+			int n = step(len);
+			tag.update(in, inOff, n);
+			keystream.squeezeXor(in, inOff, out, outOff, n);
+			inOff += n;
+			outOff += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * out <- keystream XOR in, with out absorbed into the tag.
+	 */
+	void decrypt(final byte[] in, int inOff, final byte[] out, int outOff, int len) {
+		while (len > 0) {
+			int n = step(len);
+			keystream.squeezeXor(in, inOff, out, outOff, n);
+			tag.update(out, outOff, n);
+			inOff += n;
+			outOff += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * out <- keystream XOR in over the remaining bytes of in, heap or direct,
+	 * with in absorbed into the tag. Both buffers are advanced; they may share
+	 * memory at the same address for in-place operation.
+	 */
+	void encrypt(final ByteBuffer in, final ByteBuffer out) {
+		apply(true, in, out);
+	}
+
+	/**
+	 * out <- keystream XOR in over the remaining bytes of in, heap or direct,
+	 * with out absorbed into the tag. Both buffers are advanced; they may
+	 * share memory at the same address for in-place operation.
+	 */
+	void decrypt(final ByteBuffer in, final ByteBuffer out) {
+		apply(false, in, out);
+	}
+
+	/**
+	 * Walk the buffers one block at a time in place, absorbing a view of the
+	 * plaintext side into the tag, so the same code serves heap, direct and
+	 * overlapping buffers without copying them.
+	 */
+	private void apply(final boolean encrypt, final ByteBuffer in, final ByteBuffer out) {
+		if (out.remaining() < in.remaining()) {
+			throw new BufferOverflowException();
+		}
+		// view of the plaintext side, moved along with it
+		ByteBuffer plain = encrypt ? in.duplicate() : out.duplicate();
+		int end = in.limit();
+		try {
+			while (in.position() < end) {
+				int n = step(end - in.position());
+				int at = encrypt ? in.position() : out.position();
+				in.limit(in.position() + n);
+				if (encrypt) {
+					tag.update(plain.limit(at + n).position(at));
+					keystream.squeezeXor(in, out);
+				} else {
+					keystream.squeezeXor(in, out);
+					tag.update(plain.limit(at + n).position(at));
+				}
+			}
+		} finally {
+			in.limit(end);
+		}
+	}
+
+	/**
+	 * Finish the tag.
+	 *
+	 * @param L the requested tag length in bits
+	 */
+	byte[] tag(final int L) {
+		return tag.finish(L);
+	}
+
+	/**
+	 * Length of the next step: up to the end of the current block.
+	 */
+	private int step(final int len) {
+		int n = (int)Math.min(len, block - processed % block);
+		processed += n;
+		return n;
+	}
+}
@@ -1,7 +1,13 @@
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.ObjectInputFilter;
 import java.io.ObjectInputStream;
-import java.security.SecureRandom;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.util.Arrays;
 
 /*
@@ -19,6 +25,11 @@ import java.util.Arrays;
  * 
  * The implementation also include symmetric encryption / decryption.
  * 
+ * The cSHAKE, KMACXOF and symmetric encryption methods are static and
+ * thread-safe: each call borrows a freshly initialized stream from a
+ * per-thread pool (see StreamPool), so concurrent callers share no state
+ * and need no lock. Only the SHA-3 methods use the instance state.
+ * 
  * NOTE: some of the helper methods implementations are from other sources (cited
  * 		 in the method documentation - see below for links).
  * 
@@ -28,159 +39,24 @@ import java.util.Arrays;
  */
 public class HASH {
     
-    /**
-	 * The number of rounds (KECCAK-p permuntation).
-	 */
-	private static final int ROUNDS = 24;
-	
-	/**
-	 * Width in bytes (200 bytes = 1600 bits)
-	 */
-    private static final int WIDTH = 200;
-    
-    /**
-     * Dimension of lanes.
-     */
-    private static final int DM = 5;
-
-    /**
-	 * Predefined set of 24 values that specifies how many bytes to shift on each round.
-	 * This is needed in the Iota step.
-	 */
-    private static final long[] ROUND_CONSTANTS = 	
-    		{0x0000000000000001L, 0x0000000000008082L, 0x800000000000808aL,
-    		 0x8000000080008000L, 0x000000000000808bL, 0x0000000080000001L,
-    		 0x8000000080008081L, 0x8000000000008009L, 0x000000000000008aL,
-    		 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000aL,
-    		 0x000000008000808bL, 0x800000000000008bL, 0x8000000000008089L,
-    		 0x8000000000008003L, 0x8000000000008002L, 0x8000000000000080L,
-    		 0x000000000000800aL, 0x800000008000000aL, 0x8000000080008081L,
-    		 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L};
-    
-    /**
-	 * A set of rotation constants.
-	 */
-    private static final int[] ROTATION_CONSTANTS = 
-    	{1,  3,  6,  10, 15, 21, 28, 36, 45, 55, 2,  14,
-    	 27, 41, 56, 8,  25, 43, 62, 18, 39, 61, 20, 44};
-
-    private static final int[] PILN =
-		{10, 7,  11, 17, 18, 3, 5,  16, 8,  21, 24, 4,
-		 15, 23, 19, 13, 12, 2, 20, 14, 22, 9,  6,  1};
-    
-    
-	// State contexts for SHA3
-	private byte[] b;
-	private long[] q;
-    private int pt;
-    private int rsiz;
-    private int mdlen;
+	// State context for SHA3
+	private final KeccakSponge sponge;
     
 	/**
 	 * Constructor - Initialize state context for Sha3
 	 */
 	public HASH() {
-		b = new byte[WIDTH];
-		for (int i = 0; i <= ROUNDS; i++) {
-			b[i] = (byte)0;
-		}
-		q = new long[25];	
-		pt = 0;
-		mdlen = 32;
-		rsiz = WIDTH - 2 * mdlen;
-	}
-
-	/**
-	 * ----Mappings----
-	 * Apply the function Keccak-f permutation that is consist of 24 rounds.
-	 * Each round consists of sequence of 5 steps: theta, rho, pi, chi, iota.
-	 * Each step manipulates the entire state.
-	 * 
-	 * Method based off of the C implementation of Markku-Juhani O. Saarinen.
-	 * 
-	 * @param st the state array.
-	 * 
-	 */
-	private void keccakf(byte[] st) {												// copy of state array but in long type
-		long[] bc = new long[DM];
-		long t;
-
-		// Endianess conversion. This is redundant on little-endian targets
-		
-		for (int i = 0; i <= ROUNDS; i++) {
-			   for (int j = 0; j < 8; j++) {
-				   q[i] |= (((long)st[i * 8 + j] & 0xFFL) << (j * 8));
-			   }
-		}
-
-		// actual iteration
-		// ------- Apply rounds -------
-		for (int round = 0; round < ROUNDS; round++) {
-
-			// Theta
-			for (int i = 0; i < DM; i++) {
-                bc[i] = q[i] ^ q[i + 5] ^ q[i + 10] ^ q[i + 15] ^ q[i + 20];
-            }
-			for (int i = 0; i < DM; i++) {
-				t = bc[(i + 4) % DM] ^ ROTL64(bc[(i + 1) % DM], 1);
-				for (int j = 0; j <= ROUNDS; j += DM) {
-					q[j + i] ^= t;
-				}
-			}
-
-			// Rho Pi
-			t = q[1];
-			for (int i = 0; i < ROUNDS; i++) {
-				int j = PILN[i];
-				bc[0] = q[j];
-				q[j] = ROTL64(t, ROTATION_CONSTANTS[i]);
-				t = bc[0];
-			}
-
-			//  Chi
-			for (int j = 0; j <= ROUNDS; j += 5) {
-				for (int i = 0; i < 5; i++) {
-                    bc[i] = q[j + i];
-                }
-				for (int i = 0; i < 5; i++) {
-                    q[j + i] ^= (~bc[(i + 1) % 5]) & bc[(i + 2) % 5];
-                }
-			}
-
-			//  Iota
-			q[0] ^= ROUND_CONSTANTS[round];
-		}
-
-		// Little-Edian conversion.
-		for (int i = 0; i <= ROUNDS; i++) {
-			// copy term in A' for conversion
-			t = q[i];
-			for (int j = 0; j < 8; j++) {
-				st[i * 8 + j] = (byte)((t >>  (j * 8)) & 0xFF);
-			}
-		}
+		sponge = new KeccakSponge();
 	}
 
     /**
      * Update state with more data.
      * 
-     * Method based off of the C implementation of Markku-Juhani O. Saarinen.
-     * 
      * @param data
      * @param len
      */
     private void sha3_update(byte[] data, int len) {
-		int j = pt;
-		
-		for (int i = 0; i < len; i++) {
-			b[j++] ^= data[i];
-			if (j >= rsiz) {
-				keccakf(b);
-				q = new long[25];
-				j = 0;
-			}
-		}
-		pt = j;
+    	sponge.absorb(data, 0, len);
 	}
     
     /**
@@ -189,9 +65,9 @@ public class HASH {
      * Method based off of the C implementation of Markku-Juhani O. Saarinen.
      */
     private void sha3_final() {
-    	b[pt] ^= 0x06;
-    	b[rsiz] ^= 0x80;
-    	keccakf(b);
+    	sponge.xorByte(sponge.position(), 0x06);
+    	sponge.xorByte(sponge.rate(), 0x80);
+    	sponge.permute();
     }
     
     /**
@@ -200,64 +76,20 @@ public class HASH {
      * Method based off of the C implementation of Markku-Juhani O. Saarinen.
      * 
      * @param in
-     * @return hashed output
+     * @return hashed output (the full state)
      */
     public byte[] compute_sha3(byte[] in) {
     	sha3_update(in, in.length);
     	sha3_final();
     	
-    	return b;
+    	return sponge.stateBytes();
     }
     
     /**
      * Reset Sha-3 state contexts.
      */
     public void sha3_reset() {
-		b = new byte[WIDTH];
-		for (int i = 0; i <= ROUNDS; i++) {
-			b[i] = (byte)0;
-		}
-		q = new long[25];	
-		pt = 0;
-		mdlen = 32;
-		rsiz = WIDTH - 2 * mdlen;
-    }
-    
-    ///////////// SHAKE 256 extensible-output functionality /////////////////
-    
-    // Method based off of the C implementation of Markku-Juhani O. Saarinen.
-    private void shake_xof() {
-    	// SHAKE256(M, d) = KECCAK[512] (M || 1111, d).
-    	// suffix = 0x1F
-    	b[pt] ^= 0x1F;
-		b[rsiz - 1] ^= 0x80;
-		keccakf(b);
-		q = new long[25];
-		this.pt = 0;
-	}
-
-    // Method based off of the C implementation of Markku-Juhani O. Saarinen.
-    private void shake_out(byte[] out, int len) {
-		int j = pt;
-		for (int i = 0; i < len; i++) {
-			if (j >= rsiz) {
-				keccakf(b);
-				q = new long[25];
-				j = 0;
-			}
-			out[i] = b[j++];
-		}
-		pt = j;
-	}
-    
-    
-    private void cshake_xof() {
-    	// suffix = 0x04
-    	b[pt] ^= 0x04;
-		b[this.rsiz - 1] ^= 0x80;
-		keccakf(b);
-		q = new long[25];
-		this.pt = 0;
+    	sponge.reset();
     }
 
 	/**
@@ -273,28 +105,8 @@ public class HASH {
 	 * @param S an input string to allow users to customize their use of the function.
 	 * 		  When no customization is desired, S is set to the empty string.
 	 */
-    public byte[] cSHAKE256(final byte[] X, final int L, final String N, final byte[] S) {
-    	int len = L >>> 3;
-    	byte[] out = new byte[len];
-    	
-    	// if N = "" && S= "" return SHAKE256(X, L)
-    	if (N == "" && S == null) {
-    		sha3_update(X, X.length);
-    		shake_xof();
-    		shake_out(out, len);
-    	} 
-    	
-    	// else return KECCAK[512]
-    	else {
-        	// KECCAK[512](bytepad(encode_string(N) || encode_string(S), 136) || X || 00, L)
-    		byte[] data = bytepad(combineArrays(encode_string(N.getBytes()), encode_string(S)), 136);
-    		sha3_update(data, data.length);
-    		sha3_update(X, X.length);
-    		cshake_xof();
-    		shake_out(out, len);
-    	}
-    	
-        return out;
+    public static byte[] cSHAKE256(final byte[] X, final int L, final String N, final byte[] S) {
+    	return cSHAKE(SecurityProfile.BITS_256, X, L, N, S);
     }
 
 	/**
@@ -308,16 +120,240 @@ public class HASH {
 	 * @param S an optional customization bit string of any length, including zero. 
 	 * 		  If no customization is desired, S is set to the empty string.
 	 */
-    public byte[] KMACXOF256(final byte[] K, final byte[] X, final int L, final byte[] S) { 	
-    	byte[] bytepadded = bytepad(encode_string(K), 136);
-    	byte[] right_enc = right_encode(0);
-    	
-    	// newX = bytepad(encode_string(K), 136) || X || right_encode(0)
-    	byte[] newX = combineArrays(bytepadded, X);
-    	newX = combineArrays(newX, right_enc);
-    			
-    	// return cSHAKE256(newX, L, “KMAC”, S)
-    	return cSHAKE256(newX, L, "KMAC", S);
+    public static byte[] KMACXOF256(final byte[] K, final byte[] X, final int L, final byte[] S) { 	
+    	// cSHAKE256(bytepad(encode_string(K), 136) || X || right_encode(0), L, “KMAC”, S)
+    	return KMACXOF(SecurityProfile.BITS_256, K, X, L, S);
+    }
+    
+	/**
+	 * The cSHAKE128 customizable SHAKE function, providing a 128-bit security
+	 * length with a rate of 168 bytes.
+	 * 
+	 * NIST SP 800-185: https://doi.org/10.6028/NIST.SP.800-185
+	 * 
+	 * @param X the main input bit string of any length, including zero.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param N a string of a function name, or the empty string.
+	 * @param S a customization bit string, or the empty string.
+	 */
+    public static byte[] cSHAKE128(final byte[] X, final int L, final String N, final byte[] S) {
+    	return cSHAKE(SecurityProfile.BITS_128, X, L, N, S);
+    }
+    
+    /**
+     * cSHAKE128 or cSHAKE256, depending on the security profile.
+     * 
+     * @param profile the security profile
+     * @param X the main input bit string of any length, including zero.
+     * @param L an integer representing the requested output length in bits.
+     * @param N a string of a function name, or the empty string.
+     * @param S a customization bit string, or the empty string.
+     */
+    public static byte[] cSHAKE(final SecurityProfile profile, final byte[] X, final int L,
+    							final String N, final byte[] S) {
+    	CShakeStream stream = StreamPool.cshake(profile, N, S);
+    	try {
+    		return stream.update(X).finish(L);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * SHAKE128(X, L).
+     * 
+     * @param X the input bit string of any length, including zero.
+     * @param L an integer representing the requested output length in bits.
+     */
+    public static byte[] SHAKE128(final byte[] X, final int L) {
+    	return cSHAKE128(X, L, "", null);
+    }
+    
+    /**
+     * SHAKE256(X, L).
+     * 
+     * @param X the input bit string of any length, including zero.
+     * @param L an integer representing the requested output length in bits.
+     */
+    public static byte[] SHAKE256(final byte[] X, final int L) {
+    	return cSHAKE256(X, L, "", null);
+    }
+    
+	/**
+	 * The KECCAK Message Authentication Code at the 128-bit security level.
+	 * 
+	 * NIST SP 800-185: https://doi.org/10.6028/NIST.SP.800-185
+	 * 
+	 * @param K a key bit string of any length, including zero
+	 * @param X the main input bit string of any length, including zero
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 */
+    public static byte[] KMACXOF128(final byte[] K, final byte[] X, final int L, final byte[] S) {
+    	return KMACXOF(SecurityProfile.BITS_128, K, X, L, S);
+    }
+    
+    /**
+     * KMACXOF128 or KMACXOF256, depending on the security profile.
+     * 
+     * @param profile the security profile
+     * @param K a key bit string of any length, including zero
+     * @param X the main input bit string of any length, including zero
+     * @param L an integer representing the requested output length in bits.
+     * @param S an optional customization bit string of any length, including zero.
+     */
+    public static byte[] KMACXOF(final SecurityProfile profile, final byte[] K, final byte[] X, final int L, final byte[] S) {
+    	KmacXofStream stream = StreamPool.kmac(profile, K, S);
+    	try {
+    		return stream.update(X).finish(L);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * KMACXOF128 or KMACXOF256, depending on the security profile, over the
+     * content of a file, which is memory-mapped and absorbed without being
+     * read into the heap.
+     * 
+     * @param profile the security profile
+     * @param K a key bit string of any length, including zero
+     * @param file the file holding the main input
+     * @param L an integer representing the requested output length in bits.
+     * @param S an optional customization bit string of any length, including zero.
+     */
+    public static byte[] KMACXOF(final SecurityProfile profile, final byte[] K, final Path file,
+    								 final int L, final byte[] S) throws IOException {
+    	KmacXofStream stream = StreamPool.kmac(profile, K, S);
+    	try {
+    		return stream.update(file).finish(L);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * Apply a KMACXOF256 keystream to a buffer:
+     * out <- KMACXOF256(K, X, 8 * len, S) XOR in
+     * 
+     * The keystream is produced a block at a time and XORed straight into out,
+     * so it is never materialised. in and out may be the same array (at the
+     * same offset) for in-place operation.
+     * 
+     * @param K a key bit string of any length, including zero
+     * @param X the main input bit string of any length, including zero
+     * @param S an optional customization bit string of any length, including zero.
+     * @param in the data to XOR with the keystream
+     * @param inOff offset of the data in in
+     * @param out the buffer receiving the result
+     * @param outOff offset of the result in out
+     * @param len number of bytes
+     */
+    public static void KMACXOF256Xor(final byte[] K, final byte[] X, final byte[] S,
+    								 final byte[] in, final int inOff, final byte[] out, final int outOff, final int len) {
+    	KmacXofStream stream = StreamPool.kmac(SecurityProfile.BITS_256, K, S);
+    	try {
+    		stream.update(X).squeezeXor(in, inOff, out, outOff, len);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * cSHAKE256 over buffers, heap or direct: absorbs the remaining bytes of
+     * X and fills the remaining bytes of out, so L = 8 * out.remaining().
+     * Both buffers are advanced.
+     * 
+     * @param X the main input
+     * @param N a string of a function name, or the empty string.
+     * @param S a customization bit string, or the empty string.
+     * @param out the buffer receiving the output
+     */
+    public static void cSHAKE256(final ByteBuffer X, final String N, final byte[] S, final ByteBuffer out) {
+    	CShakeStream stream = StreamPool.cshake(SecurityProfile.BITS_256, N, S);
+    	try {
+    		stream.update(X).squeeze(out);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * KMACXOF256 over buffers, heap or direct: absorbs the remaining bytes of
+     * X and fills the remaining bytes of out, so L = 8 * out.remaining().
+     * Both buffers are advanced.
+     * 
+     * @param K a key bit string of any length, including zero
+     * @param X the main input
+     * @param S an optional customization bit string of any length, including zero.
+     * @param out the buffer receiving the output
+     */
+    public static void KMACXOF256(final byte[] K, final ByteBuffer X, final byte[] S, final ByteBuffer out) {
+    	KmacXofStream stream = StreamPool.kmac(SecurityProfile.BITS_256, K, S);
+    	try {
+    		stream.update(X).squeeze(out);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * Apply a KMACXOF256 keystream to buffers, heap or direct:
+     * out <- KMACXOF256(K, X, 8 * in.remaining(), S) XOR in
+     * 
+     * Both buffers are advanced. in and out may share memory at the same
+     * address (e.g. be the same buffer) for in-place operation.
+     * 
+     * @param K a key bit string of any length, including zero
+     * @param X the main input bit string of any length, including zero
+     * @param S an optional customization bit string of any length, including zero.
+     * @param in the data to XOR with the keystream
+     * @param out the buffer receiving the result
+     */
+    public static void KMACXOF256Xor(final byte[] K, final byte[] X, final byte[] S,
+    								 final ByteBuffer in, final ByteBuffer out) {
+    	KmacXofStream stream = StreamPool.kmac(SecurityProfile.BITS_256, K, S);
+    	try {
+    		stream.update(X).squeezeXor(in, out);
+    	} finally {
+    		StreamPool.release(stream);
+    	}
+    }
+    
+    /**
+     * KMACXOF256 over the content of a file, which is memory-mapped and
+     * absorbed without being read into the heap.
+     * 
+     * @param K a key bit string of any length, including zero
+     * @param file the file holding the main input
+     * @param L an integer representing the requested output length in bits.
+     * @param S an optional customization bit string of any length, including zero.
+     */
+    public static byte[] KMACXOF256(final byte[] K, final Path file, final int L, final byte[] S) throws IOException {
+    	return KMACXOF(SecurityProfile.BITS_256, K, file, L, S);
+    }
+    
+    /**
+     * Compute the plain cryptographic hash of a file:
+     * h <- KMACXOF256(“”, m, 512, “D”)
+     * 
+     * @param file the file to hash
+     * @return the 512-bit hash
+     */
+    public static byte[] digestFile(final Path file) throws IOException {
+    	return digestFile(file, SecurityProfile.BITS_256);
+    }
+    
+    /**
+     * Compute the plain cryptographic hash of a file at the given security
+     * level: h <- KMACXOF128(“”, m, 256, “D”) or KMACXOF256(“”, m, 512, “D”)
+     * 
+     * @param file the file to hash
+     * @param profile the security profile
+     * @return the hash, twice as long as the security level
+     */
+    public static byte[] digestFile(final Path file, final SecurityProfile profile) throws IOException {
+    	return KMACXOF(profile, "".getBytes(), file, 2 * profile.bits(), "D".getBytes());
     }
     
     /**
@@ -326,24 +362,20 @@ public class HASH {
      * @param m content byte array
      * @param pw passphrase
      */
-    public SymmetricCrytogram encryptSymmetrically(final byte[] m, final byte[] pw) {
-    	 final SecureRandom random = new SecureRandom();
+    public static SymmetricCrytogram encryptSymmetrically(final byte[] m, final byte[] pw) {
     	 final byte[] z = new byte[64];		// 512 bits (64 bytes)
-    	 random.nextBytes(z);				// z <- Random(512)
+    	 KeccakDrbg.nextBytes(z);			// z <- Random(512)
     	 
     	 // (ke || ka) <- KMACXOF256(z || pw, "", 1024, "S")
-    	 sha3_reset();
     	 byte[] ke_ka = KMACXOF256(combineArrays(z, pw), "".getBytes(), 1024, "S".getBytes());
     	 byte[] ke = Arrays.copyOfRange(ke_ka, 0, ke_ka.length / 2);
     	 byte[] ka = Arrays.copyOfRange(ke_ka, ke_ka.length / 2, ke_ka.length);
     	 
-    	 // c <- KMACXOF256(ke, “”, |m|, “SKE”) xor m (output length must be multiple of 8 (L))
-    	 sha3_reset();
-    	 byte[] c = xor_byteArrays(KMACXOF256(ke, "".getBytes(), m.length * 8, "SKE".getBytes()), m, m.length);
-    	 
+    	 // c <- KMACXOF256(ke, “”, |m|, “SKE”) xor m
     	 // t <- KMACXOF256(ka, m, 512, “SKA”)
-    	 sha3_reset();
-    	 byte[] t = KMACXOF256(ka, m, 512, "SKA".getBytes());
+    	 // (both in one pass over m)
+    	 byte[] c = new byte[m.length];
+    	 byte[] t = FusedCipher.encrypt(ke, "SKE".getBytes(), ka, "SKA".getBytes(), m, c, 512);
     	 
     	 // symmetric cryptogram: (z, c, t)
     	 SymmetricCrytogram sc = new SymmetricCrytogram(z, c, t);
@@ -353,28 +385,25 @@ public class HASH {
     /**
      * Decrypt a given symmetrically cryptogram (z, c, t) under a given passphrase.
      */
-    public byte[] decryptSymmetrically(SymmetricCrytogram sc, byte[] pw) throws IOException {
+    public static byte[] decryptSymmetrically(SymmetricCrytogram sc, byte[] pw) throws IOException {
         // Get z, c, t
         byte[] z = sc.getZ();
         byte[] t = sc.getT();
         byte[] c = sc.getC();
 
         // (ke || ka) <- KMACXOF256(z || pw, "", 1024, "S")
-        sha3_reset();
         byte[] ke_ka = KMACXOF256(combineArrays(z, pw), "".getBytes(), 1024, "S".getBytes());
         byte[] ke = Arrays.copyOfRange(ke_ka, 0, ke_ka.length / 2);
         byte[] ka = Arrays.copyOfRange(ke_ka, ke_ka.length / 2, ke_ka.length);
         
         // m <- KMACXOF256(ke, “”, |c|, “SKE”) XOR c
-        sha3_reset();
-        byte[] m = xor_byteArrays(KMACXOF256(ke, "".getBytes(), c.length * 8, "SKE".getBytes()), c, c.length);
-
         // t' <- KMACXOF256(ka, m, 512, “SKA”)
-        sha3_reset();
-        byte[] t_prime = KMACXOF256(ka, m, 512, "SKA".getBytes());
+        // (both in one pass over c)
+        byte[] m = new byte[c.length];
+        byte[] t_prime = FusedCipher.decrypt(ke, "SKE".getBytes(), ka, "SKA".getBytes(), c, m, 512);
         
         // accept if, and only if, t’ = t
-        if (!Arrays.equals(t, t_prime)) {
+        if (!MessageDigest.isEqual(t, t_prime)) {
         	System.out.println("The passphrase is INCORRECT!");
         	System.out.println("Cannot decrypt the file.");
         	return null;
@@ -382,31 +411,95 @@ public class HASH {
         // ELSE
         return m;
     }
+    
+    /**
+     * Encrypt the remaining bytes of a buffer under a pass-phrase, writing the
+     * symmetric cryptogram z || c || t (|m| + 128 bytes) to out. Heap and
+     * direct buffers are supported and both buffers are advanced.
+     * 
+     * The encryption can be done in place: if m starts 64 bytes after the
+     * position of out in the same memory, c overwrites m, with z written into
+     * the 64 bytes before it and t into the 64 bytes after it.
+     * 
+     * @param m the message
+     * @param pw passphrase
+     * @param out the buffer receiving the cryptogram
+     */
+    public static void encryptSymmetrically(final ByteBuffer m, final byte[] pw, final ByteBuffer out) {
+    	if (out.remaining() < m.remaining() + 128) {
+    		throw new BufferOverflowException();
+    	}
+    	final byte[] z = new byte[64];
+    	KeccakDrbg.nextBytes(z);				// z <- Random(512)
+    	
+    	// (ke || ka) <- KMACXOF256(z || pw, "", 1024, "S")
+    	byte[] ke_ka = KMACXOF256(combineArrays(z, pw), "".getBytes(), 1024, "S".getBytes());
+    	byte[] ke = Arrays.copyOfRange(ke_ka, 0, ke_ka.length / 2);
+    	byte[] ka = Arrays.copyOfRange(ke_ka, ke_ka.length / 2, ke_ka.length);
+    	
+    	// z first: it may occupy the 64 bytes right before an in-place message
+    	out.put(z);
+    	byte[] t = FusedCipher.encrypt(ke, "SKE".getBytes(), ka, "SKA".getBytes(), m, out, 512);
+    	out.put(t);
+    }
+    
+    /**
+     * Decrypt a symmetric cryptogram z || c || t held in the remaining bytes
+     * of a buffer, writing m (|c| bytes) to out. Heap and direct buffers are
+     * supported.
+     * 
+     * The decryption can be done in place: out may start at the position of
+     * c in the same memory. If the tag does not verify, the bytes written to
+     * out are zeroed and neither buffer is advanced.
+     * 
+     * @param cryptogram the cryptogram (z, c, t)
+     * @param pw passphrase
+     * @param out the buffer receiving the message
+     * @return true if, and only if, the tag verified
+     */
+    public static boolean decryptSymmetrically(final ByteBuffer cryptogram, final byte[] pw, final ByteBuffer out) {
+    	int len = cryptogram.remaining() - 128;
+    	if (len < 0) {
+    		throw new IllegalArgumentException("A symmetric cryptogram is at least 128 bytes");
+    	}
+    	if (out.remaining() < len) {
+    		throw new BufferOverflowException();
+    	}
+    	int start = cryptogram.position();
+    	int outStart = out.position();
+    	byte[] z = new byte[64];
+    	byte[] t = new byte[64];
+    	cryptogram.get(start, z);
+    	cryptogram.get(start + 64 + len, t);
+    	
+    	// (ke || ka) <- KMACXOF256(z || pw, "", 1024, "S")
+    	byte[] ke_ka = KMACXOF256(combineArrays(z, pw), "".getBytes(), 1024, "S".getBytes());
+    	byte[] ke = Arrays.copyOfRange(ke_ka, 0, ke_ka.length / 2);
+    	byte[] ka = Arrays.copyOfRange(ke_ka, ke_ka.length / 2, ke_ka.length);
+    	
+    	byte[] t_prime = FusedCipher.decrypt(ke, "SKE".getBytes(), ka, "SKA".getBytes(),
+    										 cryptogram.slice(start + 64, len), out, 512);
+    	
+    	// accept if, and only if, t’ = t
+    	if (!MessageDigest.isEqual(t, t_prime)) {
+    		for (int i = 0; i < len; i++) {
+    			out.put(outStart + i, (byte)0);
+    		}
+    		out.position(outStart);
+    		return false;
+    	}
+    	cryptogram.position(cryptogram.limit());
+    	return true;
+    }
 
     /////// HELPER METHODS /////////
     
-	/**
-	 * Left rotate:
-	 * Rotate the bits of a lane by a length (offset) which depends on the fixed
-	 * X and Y coordinates of the lane.
-	 * 
-	 * Method based off of the C implementation of Markku-Juhani O. Saarinen.
-	 * 
-	 * @param theX the X coordinate of the lane.
-	 * @param theY the Y coordinate of the lane.
-	 * 
-	 * @return the rotated bits.
-	 */
-	private static long ROTL64(final long theX, final long theY) {
-		return (((theX) << (theY)) | ((theX) >>> (64 - (theY))));
-	}
-	
 	/**
 	 * Encode the integer X as a byte string in a way that can be unambiguously parsed 
 	 * from the beginning of the string by inserting the length of the byte string before
 	 * the byte string representation of X.
 	 * 
-	 * Validity condition: 0 <= x < 2^2040 (infinity)
+	 * Validity condition: 0 <= x < 2^2040; here 0 <= x < 2^63.
 	 * 
 	 * https://crypto.stackexchange.com/questions/75269/sha3-the-left-right-encode-functions
 	 * 
@@ -415,19 +508,12 @@ public class HASH {
 	 * @param x the integer to be encoded.
 	 * 
 	 * @return a byte string
+	 * @throws IllegalArgumentException if x is negative.
 	 */
-    private static byte[] left_encode(int x) {
-    	byte[] O  = {(byte)0x01, (byte)0x00};
-    	if (x == 0) {
-    		return O;
-    	}
-    	
-    	// ELSE
-    	int n = 1;
-    	while (!(Math.pow(2,  (8 * n)) > x)) {
-    		n++;
-    	}
-    	O = new byte[n + 1];
+    static byte[] left_encode(long x) {
+    	// n: the smallest positive integer for which 2^(8n) > x
+    	int n = encodedLength(x);
+    	byte[] O = new byte[n + 1];
     	for (int i = n; i > 0; i--) {
     		O[i] = (byte)(x & 0xFF);
     		x >>>= 8;
@@ -444,18 +530,12 @@ public class HASH {
 	 * right_encode(0) will yield 00000000 10000000
 
 	 * @return a byte string
+	 * @throws IllegalArgumentException if x is negative.
 	 */
-	private static byte[] right_encode(int x) {
-		byte[] O = {(byte)0x00, (byte)0x01};		// "00000000 00000001"
-		if (x == 0) { 			
-			return O;
-		}
-		// ELSE
-		int n = 1;
-		while (!(Math.pow(2, (8 * n)) > x)) {
-			n++;
-		}
-		O = new byte[n + 1];
+	static byte[] right_encode(long x) {
+		// n: the smallest positive integer for which 2^(8n) > x
+		int n = encodedLength(x);
+		byte[] O = new byte[n + 1];
 		for (int i = n - 1; i > -1; i--) {
 			O[i] = (byte)(x & 0xFF);
 			x >>>= 8;
@@ -464,6 +544,16 @@ public class HASH {
 		return O;
 	}
 	
+	/**
+	 * Number of bytes of x in left_encode and right_encode, at least one.
+	 */
+	private static int encodedLength(final long x) {
+		if (x < 0) {
+			throw new IllegalArgumentException("Validity condition not met; x is negative.");
+		}
+		return Math.max(1, (71 - Long.numberOfLeadingZeros(x)) / 8);
+	}
+	
 	/**
 	 * Encode bit strings in a way that may be parsed unambiguously from the beginning 
 	 * of the string S.
@@ -475,7 +565,7 @@ public class HASH {
 	 * 
 	 * @return bit string
 	 */
-    private static byte[] encode_string(byte[] S) {
+    static byte[] encode_string(byte[] S) {
 		int S_length = S.length;
 		byte[] lenS = {(byte)0x01, (byte)0x00};
 		if (S_length != 0) {
@@ -495,7 +585,7 @@ public class HASH {
 	 * 
 	 * @return 
 	 */
-    private static byte[] bytepad(final byte[] X, final int w) {
+    static byte[] bytepad(final byte[] X, final int w) {
 		// Validity condition
 		if (w > 0) {
 			byte[] encodedW = left_encode(w);
@@ -526,7 +616,7 @@ public class HASH {
 	 * @param b array 2
 	 * @return concatenated array
 	 */
-	private static byte[] combineArrays(final byte[] theA, final byte[] theB) {
+	static byte[] combineArrays(final byte[] theA, final byte[] theB) {
 		int lenA = 0;
 		int lenB = 0;
 		if (theA != null) {
@@ -550,12 +640,58 @@ public class HASH {
      */
     public static byte[] xor_byteArrays(byte[] a1, byte[] a2, int len) {
     	byte[] result = new byte[len];
-    	
+    	xor(a1, 0, a2, 0, result, 0, len);
+    	return result;
+    }
+    
+    /**
+     * out <- a XOR b over len bytes, 8 bytes at a time. out may be a or b
+     * (at the same offset) for in-place operation.
+     */
+    static void xor(final byte[] a, final int aOff, final byte[] b, final int bOff,
+    				final byte[] out, final int outOff, final int len) {
     	int i = 0;
-    	for(byte c : a1) {
-    		result[i] = (byte)(c ^ a2[i++]);
+    	for (; i <= len - 8; i += 8) {
+    		KeccakSponge.LANE.set(out, outOff + i,
+    				(long)KeccakSponge.LANE.get(a, aOff + i) ^ (long)KeccakSponge.LANE.get(b, bOff + i));
+    	}
+    	for (; i < len; i++) {
+    		out[outOff + i] = (byte)(a[aOff + i] ^ b[bOff + i]);
     	}
-    	return result;
+    }
+    
+    /**
+     * out <- a XOR b over the remaining bytes of a, 8 bytes at a time. Heap
+     * and direct buffers of any byte order are supported, and all three are
+     * advanced. out may share memory with a or b at the same address for
+     * in-place operation.
+     */
+    public static void xor(final ByteBuffer a, final ByteBuffer b, final ByteBuffer out) {
+    	int len = a.remaining();
+    	if (b.remaining() < len) {
+    		throw new BufferUnderflowException();
+    	}
+    	if (out.remaining() < len) {
+    		throw new BufferOverflowException();
+    	}
+    	int aOff = a.position();
+    	int bOff = b.position();
+    	int outOff = out.position();
+    	// XOR commutes with a byte swap, so only a differing order needs fixing
+    	boolean swapB = b.order() != a.order();
+    	boolean swapOut = out.order() != a.order();
+    	int i = 0;
+    	for (; i <= len - 8; i += 8) {
+    		long vb = b.getLong(bOff + i);
+    		long v = a.getLong(aOff + i) ^ (swapB ? Long.reverseBytes(vb) : vb);
+    		out.putLong(outOff + i, swapOut ? Long.reverseBytes(v) : v);
+    	}
+    	for (; i < len; i++) {
+    		out.put(outOff + i, (byte)(a.get(aOff + i) ^ b.get(bOff + i)));
+    	}
+    	a.position(aOff + len);
+    	b.position(bOff + len);
+    	out.position(outOff + len);
     }
 	
 	/**
@@ -576,17 +712,28 @@ public class HASH {
 	}
 	
 	/**
-	 * Read a Cryptogram object from the given file path and return it.
+	 * Read a cryptogram from the given file path and return it.
+	 * 
+	 * Files in the binary format of CryptogramFiles are decoded from their
+	 * header; anything else is taken to be a SymmetricCrytogram serialized by
+	 * an earlier version, and no other class is accepted from the stream.
+	 * Elliptic cryptograms serialized by earlier versions are rejected: they
+	 * were computed on the wrong curve and cannot be decrypted.
 	 * 
 	 * https://examples.javacodegeeks.com/core-java/io/file/how-to-read-an-object-from-file-in-java/
 	 * 
 	 * @param filePath
-	 * @return Symmetric Cryptogram object
+	 * @return SymmetricCrytogram or EllipticCurveCryptogram object, or null
 	 */
 	public static Object readCryptogramFromFile(String filePath) {
 		try {
+			Object cryptogram = CryptogramFiles.read(Paths.get(filePath));
+			if (cryptogram != null) {
+				return cryptogram;
+			}
 			FileInputStream fileIn = new FileInputStream(filePath);
 			ObjectInputStream objectIn = new ObjectInputStream(fileIn);
+			objectIn.setObjectInputFilter(ObjectInputFilter.Config.createFilter("SymmetricCrytogram;[B;!*"));
 			Object obj = objectIn.readObject();
 			objectIn.close();
 			return obj;
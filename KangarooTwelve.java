@@ -0,0 +1,270 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * KangarooTwelve at the 256-bit security level (KT256) based off of
+ * RFC 9861: https://www.rfc-editor.org/rfc/rfc9861
+ * 
+ * KT256 runs TurboSHAKE256 (12-round Keccak-p[1600, 12] at rate 136) over a
+ * tree: S = M || C || length_encode(|C|) is cut into 8192-byte chunks, every
+ * chunk after the first is hashed on its own into a 64-byte chaining value,
+ * and the first chunk and the chaining values are hashed together. It is meant
+ * for fingerprinting (deduplication, change detection) where the full 24-round
+ * KMACXOF256 "D" hash is more than needed. The leaf chunks can be hashed on a
+ * ForkJoinPool.
+ * 
+ * @author Minh Nguyen
+ */
+public final class KangarooTwelve {
+	
+	/**
+	 * Size in bytes of the chunks of S.
+	 */
+	private static final int CHUNK = 8192;
+	
+	/**
+	 * Size in bytes of a chaining value.
+	 */
+	private static final int CV_SIZE = 64;
+	
+	/**
+	 * Domain separation bytes: single node, leaf, final node.
+	 */
+	private static final int SINGLE_NODE = 0x07;
+	private static final int LEAF = 0x0B;
+	private static final int FINAL_NODE = 0x06;
+	
+	/**
+	 * Marks the first chunk of the final node: 0x03 || 0x00^7.
+	 */
+	private static final byte[] FINAL_NODE_MARK = {0x03, 0, 0, 0, 0, 0, 0, 0};
+	
+	/**
+	 * Closes the final node, after length_encode(n - 1).
+	 */
+	private static final byte[] FINAL_NODE_END = {(byte)0xFF, (byte)0xFF};
+	
+	/**
+	 * Number of leaf chunks a task hashes itself instead of splitting further.
+	 */
+	private static final int LEAVES_PER_TASK = 64;
+	
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private KangarooTwelve() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * KT256(M, C, L), hashing the leaves on all cores.
+	 * 
+	 * @param M the input bit string of any length, including zero.
+	 * @param C a customization bit string of any length, including zero.
+	 * @param L an integer representing the requested output length in bits.
+	 */
+	public static byte[] digest(final byte[] M, final byte[] C, final int L) {
+		return digest(M, C, L, true);
+	}
+	
+	/**
+	 * KT256(M, C, L).
+	 * 
+	 * @param M the input bit string of any length, including zero.
+	 * @param C a customization bit string of any length, including zero.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param parallel whether the leaves are hashed on the ForkJoinPool.
+	 */
+	public static byte[] digest(final byte[] M, final byte[] C, final int L, final boolean parallel) {
+		Tree tree = new Tree(M.length, C, parallel);
+		tree.absorbWindow(ByteBuffer.wrap(M), 0, true);
+		return tree.finish(L);
+	}
+	
+	/**
+	 * KT256(M, C, L) over the content of a file. The file is memory-mapped in
+	 * windows and never read into the heap.
+	 * 
+	 * @param file the file holding the input.
+	 * @param C a customization bit string of any length, including zero.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param parallel whether the leaves are hashed on the ForkJoinPool.
+	 */
+	public static byte[] digest(final Path file, final byte[] C, final int L, final boolean parallel) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			Tree tree = new Tree(size, C, parallel);
+			// windows are a whole number of chunks, so no M-part of a chunk straddles two windows
+			long window = CShakeStream.MAP_WINDOW;
+			long pos = 0;
+			do {
+				long len = Math.min(window, size - pos);
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+				tree.absorbWindow(mapped, pos, pos + len == size);
+				pos += len;
+			} while (pos < size);
+			return tree.finish(L);
+		}
+	}
+	
+	/**
+	 * length_encode(x): x in big-endian with no leading zero bytes, followed
+	 * by the number of those bytes.
+	 */
+	static byte[] length_encode(long x) {
+		int n = 0;
+		for (long v = x; v != 0; v >>>= 8) {
+			n++;
+		}
+		byte[] O = new byte[n + 1];
+		for (int i = n - 1; i >= 0; i--) {
+			O[i] = (byte)(x & 0xFF);
+			x >>>= 8;
+		}
+		O[n] = (byte)n;
+		return O;
+	}
+	
+	/**
+	 * The KT256 tree over S = M || C || length_encode(|C|), fed with M one
+	 * window at a time.
+	 */
+	private static final class Tree {
+		
+		private final long mLength;
+		private final long sLength;
+		private final byte[] suffix;
+		private final boolean parallel;
+		private final long chunks;
+		private final KeccakSponge finalNode;
+		
+		Tree(final long theMLength, final byte[] C, final boolean theParallel) {
+			mLength = theMLength;
+			suffix = HASH.combineArrays(C, length_encode(C.length));
+			sLength = mLength + suffix.length;
+			parallel = theParallel;
+			chunks = (sLength + CHUNK - 1) / CHUNK;
+			finalNode = TurboShake256.newSponge();
+		}
+		
+		/**
+		 * Absorb every chunk whose M-part starts in the window, and on the last
+		 * window every remaining chunk of S.
+		 * 
+		 * @param window bytes [start, start + window.remaining()) of M.
+		 * @param start offset of the window in M, a multiple of CHUNK.
+		 * @param last whether this window holds the end of M.
+		 */
+		void absorbWindow(final ByteBuffer window, final long start, final boolean last) {
+			long from = start / CHUNK;
+			long to = last ? chunks : (start + window.remaining()) / CHUNK;
+			if (from == 0 && to > 0) {
+				// S_0 goes into the final node itself
+				absorbChunk(finalNode, window, start, 0);
+				if (chunks > 1) {
+					finalNode.absorb(FINAL_NODE_MARK, 0, FINAL_NODE_MARK.length);
+				}
+				from = 1;
+			}
+			if (from >= to) {
+				return;
+			}
+			
+			// CV_i = TurboSHAKE256(S_i, 0x0B, 512)
+			byte[] cvs = new byte[(int)(to - from) * CV_SIZE];
+			LeafTask task = new LeafTask(this, window, start, from, from, to, cvs);
+			if (parallel) {
+				ForkJoinPool.commonPool().invoke(task);
+			} else {
+				task.compute();
+			}
+			finalNode.absorb(cvs, 0, cvs.length);
+		}
+		
+		/**
+		 * Absorb chunk i of S, taking its M-part from the window and the rest
+		 * from the suffix.
+		 */
+		void absorbChunk(final KeccakSponge sponge, final ByteBuffer window, final long start, final long i) {
+			long from = i * CHUNK;
+			long to = Math.min(from + CHUNK, sLength);
+			long mTo = Math.min(to, mLength);
+			if (from < mTo) {
+				sponge.absorb(window.slice((int)(from - start), (int)(mTo - from)));
+			}
+			if (to > mLength) {
+				int sFrom = (int)(Math.max(from, mLength) - mLength);
+				sponge.absorb(suffix, sFrom, (int)(to - mLength) - sFrom);
+			}
+		}
+		
+		byte[] finish(final int L) {
+			byte[] out = new byte[L >>> 3];
+			if (chunks <= 1) {
+				// TurboSHAKE256(S, 0x07, L)
+				TurboShake256.finish(finalNode, SINGLE_NODE, out, 0, out.length);
+			} else {
+				// Node* || length_encode(n - 1) || 0xFF || 0xFF
+				byte[] n = length_encode(chunks - 1);
+				finalNode.absorb(n, 0, n.length);
+				finalNode.absorb(FINAL_NODE_END, 0, FINAL_NODE_END.length);
+				TurboShake256.finish(finalNode, FINAL_NODE, out, 0, out.length);
+			}
+			return out;
+		}
+	}
+	
+	/**
+	 * Hashes leaf chunks [from, to) into their slots of cvs (slot 0 being
+	 * chunk base).
+	 */
+	private static final class LeafTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Tree tree;
+		private final ByteBuffer window;
+		private final long start;
+		private final long base;
+		private final long from;
+		private final long to;
+		private final byte[] cvs;
+		
+		LeafTask(final Tree theTree, final ByteBuffer theWindow, final long theStart,
+				 final long theBase, final long theFrom, final long theTo, final byte[] theCvs) {
+			tree = theTree;
+			window = theWindow;
+			start = theStart;
+			base = theBase;
+			from = theFrom;
+			to = theTo;
+			cvs = theCvs;
+		}
+
+		@Override
+		protected void compute() {
+			if (tree.parallel && to - from > LEAVES_PER_TASK) {
+				long mid = (from + to) >>> 1;
+				invokeAll(new LeafTask(tree, window, start, base, from, mid, cvs),
+						  new LeafTask(tree, window, start, base, mid, to, cvs));
+				return;
+			}
+			KeccakSponge leaf = TurboShake256.newSponge();
+			for (long i = from; i < to; i++) {
+				leaf.reset();
+				tree.absorbChunk(leaf, window, start, i);
+				TurboShake256.finish(leaf, LEAF, cvs, (int)(i - base) * CV_SIZE, CV_SIZE);
+			}
+		}
+	}
+}
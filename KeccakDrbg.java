@@ -0,0 +1,79 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/**
+ * Deterministic random bit generator for nonces, built on cSHAKE256.
+ *
+ * Each thread keeps its own generator, seeded with 64 bytes from the
+ * operating system the first time the thread uses it, so drawing a nonce
+ * takes no lock and neither constructs nor seeds a SecureRandom. A request
+ * for n bytes squeezes 64 + n bytes under the current key and keeps the
+ * first 64 as the next key, so the state never reveals earlier outputs:
+ *
+ * (K' || r) <- cSHAKE256(K, 512 + 8n, “”, “DRBG”)
+ *
+ * Every RESEED_INTERVAL requests the key is mixed with fresh bytes from the
+ * operating system:
+ *
+ * K <- cSHAKE256(K || Random(512), 512, “”, “DRBG reseed”)
+ *
+ * @author Minh Nguyen
+ */
+final class KeccakDrbg {
+
+	/**
+	 * Number of requests a thread serves between reseeds.
+	 */
+	static final int RESEED_INTERVAL = 1 << 16;
+
+	private static final int KEY_LENGTH = 64;
+
+	private static final byte[] GENERATE = "DRBG".getBytes();
+	private static final byte[] RESEED = "DRBG reseed".getBytes();
+
+	/**
+	 * The operating system source, only used to seed and reseed.
+	 */
+	private static final SecureRandom SEED = new SecureRandom();
+
+	private static final ThreadLocal<KeccakDrbg> GENERATOR = ThreadLocal.withInitial(KeccakDrbg::new);
+
+	private final CShakeStream stream = new CShakeStream();
+	private final byte[] key = new byte[KEY_LENGTH];
+	private int requests;
+
+	private KeccakDrbg() {
+		SEED.nextBytes(key);
+	}
+
+	/**
+	 * Fill out with random bytes from the generator of the calling thread.
+	 */
+	static void nextBytes(final byte[] out) {
+		GENERATOR.get().generate(out);
+	}
+
+	private void generate(final byte[] out) {
+		if (++requests == RESEED_INTERVAL) {
+			reseed();
+			requests = 0;
+		}
+		// (K' || r) <- cSHAKE256(K, 512 + 8n, “”, “DRBG”)
+		stream.init("", GENERATE).update(key);
+		stream.squeeze(key);
+		stream.squeeze(out);
+	}
+
+	private void reseed() {
+		byte[] seed = new byte[KEY_LENGTH];
+		SEED.nextBytes(seed);
+		// K <- cSHAKE256(K || seed, 512, “”, “DRBG reseed”)
+		stream.init("", RESEED).update(key).update(seed);
+		stream.squeeze(key);
+		Arrays.fill(seed, (byte)0);
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * A Keccak-f[1600] permutation engine.
+ * 
+ * The state is handed over as 25 little-endian lanes, lane (x, y) being
+ * stored at index x + 5y, and is permuted in place. Every engine must
+ * produce exactly the same output; they only differ in how fast they get
+ * there.
+ * 
+ * The engine used by {@link HASH} is picked once at startup with the system
+ * property {@code keccak.engine}:
+ * - "reference": the table-driven loop version ({@link ReferenceKeccakEngine}).
+ * - "unrolled": the register-resident version ({@link UnrolledKeccakEngine}).
+ * - "auto" (default): both are checked against each other and timed on a
+ *   short run, and the faster one is used. If they disagree, selecting an
+ *   engine fails with an IllegalStateException rather than hiding a broken
+ *   engine.
+ * 
+ * @author Minh Nguyen
+ */
+public interface KeccakEngine {
+	
+	/**
+	 * Name of the system property that selects the engine.
+	 */
+	String ENGINE_PROPERTY = "keccak.engine";
+
+	/**
+	 * Apply the 24 rounds of Keccak-f[1600] to the state.
+	 * 
+	 * @param a the 25 state lanes, permuted in place.
+	 */
+	default void permute(long[] a) {
+		permute(a, 24);
+	}
+	
+	/**
+	 * Apply Keccak-p[1600, rounds]: the last rounds rounds of Keccak-f[1600]
+	 * (e.g. the 12 rounds used by TurboSHAKE and KangarooTwelve).
+	 * 
+	 * @param a the 25 state lanes, permuted in place.
+	 * @param rounds the number of rounds, from 1 to 24.
+	 */
+	void permute(long[] a, int rounds);
+	
+	/**
+	 * Name of the engine, as accepted by the {@code keccak.engine} property.
+	 */
+	String name();
+	
+	/**
+	 * Create an engine of the kind selected at startup. Engines may keep
+	 * scratch space, so each sponge should hold its own instance.
+	 * 
+	 * @return a new engine
+	 */
+	static KeccakEngine newInstance() {
+		return Selection.UNROLLED ? new UnrolledKeccakEngine() : new ReferenceKeccakEngine();
+	}
+	
+	/**
+	 * Lazily computed engine selection.
+	 */
+	final class Selection {
+		
+		/**
+		 * Number of timed permutations per engine during self-calibration.
+		 */
+		private static final int CALIBRATION_ROUNDS = 2000;
+		
+		private static final boolean UNROLLED = select();
+		
+		private Selection() {
+			// DO NOTHING
+		}
+		
+		private static boolean select() {
+			String choice = System.getProperty(ENGINE_PROPERTY, "auto");
+			if (choice.equalsIgnoreCase("reference")) {
+				return false;
+			} else if (choice.equalsIgnoreCase("unrolled")) {
+				return true;
+			} else if (!choice.equalsIgnoreCase("auto")) {
+				throw new IllegalArgumentException("Unknown Keccak engine: " + choice);
+			}
+			
+			KeccakEngine reference = new ReferenceKeccakEngine();
+			KeccakEngine unrolled = new UnrolledKeccakEngine();
+			long[] x = new long[25];
+			long[] y = new long[25];
+			for (int i = 0; i < 25; i++) {
+				x[i] = y[i] = 0x9E3779B97F4A7C15L * (i + 1);
+			}
+			
+			// warm both up, checking they agree while at it
+			for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+				reference.permute(x);
+				unrolled.permute(y);
+			}
+			if (!java.util.Arrays.equals(x, y)) {
+				throw new IllegalStateException("The unrolled and reference Keccak engines disagree");
+			}
+			return time(unrolled, y) <= time(reference, x);
+		}
+		
+		private static long time(KeccakEngine engine, long[] state) {
+			long start = System.nanoTime();
+			for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+				engine.permute(state);
+			}
+			return System.nanoTime() - start;
+		}
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * The Keccak sponge: a 1600-bit state kept as 25 little-endian lanes, a rate
+ * (set by the capacity of a security profile), and a byte position into the rate.
+ * 
+ * Input is XORed straight into the lanes and output is read straight out of
+ * them, so absorbing and squeezing allocate nothing per block.
+ * 
+ * @author Minh Nguyen
+ */
+public class KeccakSponge {
+	
+	/**
+	 * Width in bytes (200 bytes = 1600 bits)
+	 */
+	public static final int WIDTH = 200;
+	
+	/**
+	 * The number of rounds of Keccak-f[1600].
+	 */
+	public static final int ROUNDS = 24;
+	
+    /**
+     * Little-endian long view over a byte array, used to move whole lanes
+     * in and out of the state at once.
+     */
+    static final VarHandle LANE =
+    		MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	
+	private final long[] a;
+	private final KeccakEngine engine;
+	private final int rate;
+	private final int rounds;
+	private int pt;
+	
+	/**
+	 * Construct an empty sponge for KECCAK[512].
+	 */
+	public KeccakSponge() {
+		this(SecurityProfile.BITS_256, ROUNDS);
+	}
+	
+	/**
+	 * Construct an empty sponge at the rate of KECCAK[512] running a reduced
+	 * number of rounds (e.g. 12 for TurboSHAKE256).
+	 * 
+	 * @param theRounds the number of rounds of Keccak-p[1600, rounds].
+	 */
+	public KeccakSponge(final int theRounds) {
+		this(SecurityProfile.BITS_256, theRounds);
+	}
+	
+	/**
+	 * Construct an empty sponge for the capacity of a security profile.
+	 * 
+	 * @param profile the security profile, which fixes the rate.
+	 * @param theRounds the number of rounds of Keccak-p[1600, rounds].
+	 */
+	public KeccakSponge(final SecurityProfile profile, final int theRounds) {
+		if (theRounds < 1 || theRounds > ROUNDS) {
+			throw new IllegalArgumentException("Number of rounds must be between 1 and " + ROUNDS + ".");
+		}
+		a = new long[25];
+		engine = KeccakEngine.newInstance();
+		rate = profile.rate();
+		rounds = theRounds;
+		pt = 0;
+	}
+	
+	/**
+	 * Construct a copy of another sponge: same rate, rounds, state and position.
+	 */
+	public KeccakSponge(final KeccakSponge other) {
+		a = other.a.clone();
+		engine = KeccakEngine.newInstance();
+		rate = other.rate;
+		rounds = other.rounds;
+		pt = other.pt;
+	}
+	
+	/**
+	 * Overwrite this sponge with a copy of the state and position of another
+	 * sponge of the same rate and number of rounds.
+	 */
+	public void copyFrom(final KeccakSponge other) {
+		System.arraycopy(other.a, 0, a, 0, a.length);
+		pt = other.pt;
+	}
+	
+	/**
+	 * Copy the 25 state lanes into dst.
+	 */
+	void copyStateTo(final long[] dst) {
+		System.arraycopy(a, 0, dst, 0, a.length);
+	}
+	
+	/**
+	 * Reset the state to all zeros.
+	 */
+	public void reset() {
+		Arrays.fill(a, 0L);
+		pt = 0;
+	}
+	
+	/**
+	 * @return the rate in bytes.
+	 */
+	public int rate() {
+		return rate;
+	}
+	
+	/**
+	 * @return the current byte position into the rate.
+	 */
+	public int position() {
+		return pt;
+	}
+	
+	/**
+	 * Apply the permutation to the state.
+	 */
+	public void permute() {
+		engine.permute(a, rounds);
+	}
+	
+    /**
+     * XOR a single byte into the state at the given byte position.
+     */
+    public void xorByte(int pos, int value) {
+    	a[pos >>> 3] ^= (value & 0xFFL) << ((pos & 7) << 3);
+    }
+	
+	/**
+	 * Absorb len bytes of data starting at off.
+	 * 
+	 * Input is XORed into the lanes a whole lane at a time whenever the
+	 * state position is lane-aligned.
+	 */
+	public void absorb(byte[] data, int off, int len) {
+		int j = pt;
+		int i = off;
+		int end = off + len;
+		
+		while (i < end) {
+			if ((j & 7) == 0 && end - i >= 8) {
+				a[j >>> 3] ^= (long)LANE.get(data, i);
+				i += 8;
+				j += 8;
+			} else {
+				a[j >>> 3] ^= (data[i++] & 0xFFL) << ((j & 7) << 3);
+				j++;
+			}
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+		}
+		pt = j;
+	}
+	
+	/**
+	 * Absorb the remaining bytes of a buffer, heap or direct, advancing its
+	 * position to its limit.
+	 */
+	public void absorb(ByteBuffer data) {
+		boolean littleEndian = data.order() == ByteOrder.LITTLE_ENDIAN;
+		int j = pt;
+		int i = data.position();
+		int end = data.limit();
+		
+		while (i < end) {
+			if ((j & 7) == 0 && end - i >= 8) {
+				long v = data.getLong(i);
+				a[j >>> 3] ^= littleEndian ? v : Long.reverseBytes(v);
+				i += 8;
+				j += 8;
+			} else {
+				a[j >>> 3] ^= (data.get(i++) & 0xFFL) << ((j & 7) << 3);
+				j++;
+			}
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+		}
+		data.position(end);
+		pt = j;
+	}
+	
+	/**
+	 * Duplex encryption: XOR len bytes of in into the state and write the
+	 * resulting state bytes, which are in XOR the keystream, into out,
+	 * permuting whenever the rate is full. in and out may be the same array
+	 * (at the same offset) for in-place operation.
+	 */
+	public void duplexEncrypt(byte[] in, int inOff, byte[] out, int outOff, int len) {
+		int j = pt;
+		int i = 0;
+
+		while (i < len) {
+			if ((j & 7) == 0 && len - i >= 8) {
+				long v = a[j >>> 3] ^ (long)LANE.get(in, inOff + i);
+				a[j >>> 3] = v;
+				LANE.set(out, outOff + i, v);
+				i += 8;
+				j += 8;
+			} else {
+				int shift = (j & 7) << 3;
+				a[j >>> 3] ^= (in[inOff + i] & 0xFFL) << shift;
+				out[outOff + i] = (byte)(a[j >>> 3] >>> shift);
+				i++;
+				j++;
+			}
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+		}
+		pt = j;
+	}
+
+	/**
+	 * Duplex decryption: write in XOR the state into out and overwrite the
+	 * state with in, so that the state ends up exactly as after duplexEncrypt
+	 * of the plaintext. in and out may be the same array (at the same offset)
+	 * for in-place operation.
+	 */
+	public void duplexDecrypt(byte[] in, int inOff, byte[] out, int outOff, int len) {
+		int j = pt;
+		int i = 0;
+
+		while (i < len) {
+			if ((j & 7) == 0 && len - i >= 8) {
+				long c = (long)LANE.get(in, inOff + i);
+				LANE.set(out, outOff + i, a[j >>> 3] ^ c);
+				a[j >>> 3] = c;
+				i += 8;
+				j += 8;
+			} else {
+				int shift = (j & 7) << 3;
+				long m = ((a[j >>> 3] >>> shift) ^ in[inOff + i]) & 0xFFL;
+				a[j >>> 3] ^= m << shift;
+				out[outOff + i] = (byte)m;
+				i++;
+				j++;
+			}
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+		}
+		pt = j;
+	}
+
+	/**
+	 * Close the input: append the domain separation suffix and the final bit
+	 * of the pad10*1 padding, then switch to squeezing.
+	 * 
+	 * @param suffix the domain bits, with the first padding bit already
+	 * 		  appended (e.g. 0x1F for SHAKE, 0x04 for cSHAKE).
+	 */
+	public void pad(int suffix) {
+		xorByte(pt, suffix);
+		xorByte(rate - 1, 0x80);
+		engine.permute(a, rounds);
+		pt = 0;
+	}
+	
+	/**
+	 * Squeeze len bytes of output into out starting at off.
+	 */
+	public void squeeze(byte[] out, int off, int len) {
+		int j = pt;
+		int i = off;
+		int end = off + len;
+		
+		while (i < end) {
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+			if ((j & 7) == 0 && end - i >= 8) {
+				LANE.set(out, i, a[j >>> 3]);
+				i += 8;
+				j += 8;
+			} else {
+				out[i++] = (byte)(a[j >>> 3] >>> ((j & 7) << 3));
+				j++;
+			}
+		}
+		pt = j;
+	}
+	
+	/**
+	 * Squeeze len bytes of output and XOR them with in, writing the result
+	 * into out. in and out may be the same array (at the same offset) for
+	 * in-place operation.
+	 */
+	public void squeezeXor(byte[] in, int inOff, byte[] out, int outOff, int len) {
+		int j = pt;
+		int i = 0;
+		
+		while (i < len) {
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+			if ((j & 7) == 0 && len - i >= 8) {
+				LANE.set(out, outOff + i, (long)LANE.get(in, inOff + i) ^ a[j >>> 3]);
+				i += 8;
+				j += 8;
+			} else {
+				out[outOff + i] = (byte)(in[inOff + i] ^ (a[j >>> 3] >>> ((j & 7) << 3)));
+				i++;
+				j++;
+			}
+		}
+		pt = j;
+	}
+	
+	/**
+	 * Fill the remaining bytes of a buffer, heap or direct, with output,
+	 * advancing its position to its limit.
+	 */
+	public void squeeze(ByteBuffer out) {
+		boolean littleEndian = out.order() == ByteOrder.LITTLE_ENDIAN;
+		int j = pt;
+		int i = out.position();
+		int end = out.limit();
+		
+		while (i < end) {
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+			if ((j & 7) == 0 && end - i >= 8) {
+				long v = a[j >>> 3];
+				out.putLong(i, littleEndian ? v : Long.reverseBytes(v));
+				i += 8;
+				j += 8;
+			} else {
+				out.put(i++, (byte)(a[j >>> 3] >>> ((j & 7) << 3)));
+				j++;
+			}
+		}
+		out.position(end);
+		pt = j;
+	}
+	
+	/**
+	 * Squeeze as many bytes of output as in has remaining and XOR them with
+	 * in, writing the result into out. Both buffers, heap or direct, are
+	 * advanced. in and out may share memory at the same address for in-place
+	 * operation.
+	 */
+	public void squeezeXor(ByteBuffer in, ByteBuffer out) {
+		int len = in.remaining();
+		if (out.remaining() < len) {
+			throw new BufferOverflowException();
+		}
+		boolean inLittle = in.order() == ByteOrder.LITTLE_ENDIAN;
+		boolean outLittle = out.order() == ByteOrder.LITTLE_ENDIAN;
+		int inOff = in.position();
+		int outOff = out.position();
+		int j = pt;
+		int i = 0;
+		
+		while (i < len) {
+			if (j >= rate) {
+				engine.permute(a, rounds);
+				j = 0;
+			}
+			if ((j & 7) == 0 && len - i >= 8) {
+				long v = in.getLong(inOff + i);
+				v = (inLittle ? v : Long.reverseBytes(v)) ^ a[j >>> 3];
+				out.putLong(outOff + i, outLittle ? v : Long.reverseBytes(v));
+				i += 8;
+				j += 8;
+			} else {
+				out.put(outOff + i, (byte)(in.get(inOff + i) ^ (a[j >>> 3] >>> ((j & 7) << 3))));
+				i++;
+				j++;
+			}
+		}
+		in.position(inOff + len);
+		out.position(outOff + len);
+		pt = j;
+	}
+	
+	/**
+	 * @return the full state as 200 bytes.
+	 */
+	public byte[] stateBytes() {
+		byte[] st = new byte[WIDTH];
+		for (int i = 0; i < a.length; i++) {
+			LANE.set(st, i * 8, a[i]);
+		}
+		return st;
+	}
+}
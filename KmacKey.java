@@ -0,0 +1,89 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A prepared KMACXOF256 (or KMACXOF128) key.
+ * 
+ * KMACXOF256 starts every computation by absorbing
+ * bytepad(encode_string("KMAC") || encode_string(S), 136) and
+ * bytepad(encode_string(K), 136). When many messages are tagged under the same
+ * key and customization string, those prefix blocks can outnumber the message
+ * blocks. A KmacKey absorbs them once and keeps a snapshot of the sponge;
+ * each message then starts from a copy of that snapshot.
+ * 
+ * A KmacKey is immutable and may be shared between threads.
+ * 
+ * @author Minh Nguyen
+ */
+public class KmacKey {
+	
+	private final SecurityProfile profile;
+	private final KeccakSponge state;
+	
+	/**
+	 * Prepare a KMACXOF256 key.
+	 * 
+	 * @param K a key bit string of any length, including zero
+	 * @param S an optional customization bit string of any length, including zero.
+	 */
+	public KmacKey(final byte[] K, final byte[] S) {
+		this(K, S, SecurityProfile.BITS_256);
+	}
+	
+	/**
+	 * Prepare a key for KMACXOF128 (BITS_128) or KMACXOF256 (BITS_256).
+	 * 
+	 * @param K a key bit string of any length, including zero
+	 * @param S an optional customization bit string of any length, including zero.
+	 * @param theProfile the security profile
+	 */
+	public KmacKey(final byte[] K, final byte[] S, final SecurityProfile theProfile) {
+		profile = theProfile;
+		state = new KmacXofStream(profile).init(K, S).snapshot();
+	}
+	
+	/**
+	 * @return the security profile the key was prepared for.
+	 */
+	public SecurityProfile profile() {
+		return profile;
+	}
+	
+	/**
+	 * @return the pre-absorbed sponge; callers must copy it, not modify it.
+	 */
+	KeccakSponge state() {
+		return state;
+	}
+	
+	/**
+	 * @return a new KMACXOF stream under this key, ready for update.
+	 */
+	public KmacXofStream newStream() {
+		return new KmacXofStream(profile).init(this);
+	}
+	
+	/**
+	 * KMACXOF(K, X, L, S) under this key.
+	 * 
+	 * @param X the main input bit string of any length, including zero
+	 * @param L an integer representing the requested output length in bits.
+	 */
+	public byte[] KMACXOF(final byte[] X, final int L) {
+		return newStream().update(X).finish(L);
+	}
+	
+	/**
+	 * KMACXOF(K, X, L, S) under this key, X being the content of a file.
+	 * 
+	 * @param file the file holding the main input
+	 * @param L an integer representing the requested output length in bits.
+	 */
+	public byte[] KMACXOF(final Path file, final int L) throws IOException {
+		return newStream().update(file).finish(L);
+	}
+}
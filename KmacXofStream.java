@@ -0,0 +1,78 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * Incremental KMACXOF256 (NIST SP 800-185: https://doi.org/10.6028/NIST.SP.800-185).
+ * 
+ * KMACXOF256(K, X, L, S) = cSHAKE256(bytepad(encode_string(K), 136) || X || right_encode(0), L, "KMAC", S)
+ * 
+ * The key prefix is absorbed by init and right_encode(0) when the output is
+ * first requested, so the message X itself is never copied. Built for the
+ * 128-bit security profile, the stream computes KMACXOF128 instead (rate 168).
+ * 
+ * @author Minh Nguyen
+ */
+public class KmacXofStream extends CShakeStream {
+	
+	private static final byte[] RIGHT_ENCODE_0 = HASH.right_encode(0);
+	
+	/**
+	 * Construct a KMACXOF256 stream. It must be initialized with init before use.
+	 */
+	public KmacXofStream() {
+		super();
+	}
+	
+	/**
+	 * Construct a stream for the given security profile: KMACXOF128 for
+	 * BITS_128, KMACXOF256 for BITS_256. It must be initialized with init
+	 * before use.
+	 */
+	public KmacXofStream(final SecurityProfile theProfile) {
+		super(theProfile);
+	}
+	
+	/**
+	 * Start a new KMACXOF computation.
+	 * 
+	 * @param K a key bit string of any length, including zero
+	 * @param S an optional customization bit string of any length, including zero. 
+	 * 		  If no customization is desired, S is set to the empty string.
+	 * @return this stream
+	 */
+	public KmacXofStream init(final byte[] K, final byte[] S) {
+		super.init("KMAC", S);
+		byte[] bytepadded = HASH.bytepad(HASH.encode_string(K), sponge.rate());
+		sponge.absorb(bytepadded, 0, bytepadded.length);
+		return this;
+	}
+	
+	/**
+	 * Start a new KMACXOF computation under a prepared key. This only
+	 * copies the key's pre-absorbed state.
+	 * 
+	 * @param key the prepared key and customization string, of the same
+	 * 		  security profile as this stream
+	 * @return this stream
+	 */
+	public KmacXofStream init(final KmacKey key) {
+		if (key.profile() != profile) {
+			throw new IllegalArgumentException("Key was prepared for a different security level.");
+		}
+		restore(key.state());
+		return this;
+	}
+	
+	/**
+	 * @return a copy of the sponge as it stands, used to prepare keys.
+	 */
+	KeccakSponge snapshot() {
+		return new KeccakSponge(sponge);
+	}
+	
+	@Override
+	protected void finishInput() {
+		sponge.absorb(RIGHT_ENCODE_0, 0, RIGHT_ENCODE_0.length);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * A Keccak-f[1600] engine that permutes several independent states at once.
+ * 
+ * The SIMD engine ({@code VectorKeccakEngine}) interleaves 4 or 8 states
+ * across the lanes of {@code jdk.incubator.vector} LongVectors, depending
+ * on the vector width of the machine. It is used when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector}, unless the system property
+ * {@code keccak.vector} is set to "false". Otherwise the scalar engine,
+ * which permutes the states one after the other with a {@link KeccakEngine},
+ * is used. Both produce the same output as {@link KeccakEngine}.
+ * 
+ * @author Minh Nguyen
+ */
+public interface MultiKeccakEngine {
+	
+	/**
+	 * Name of the system property that enables or disables the SIMD engine.
+	 */
+	String VECTOR_PROPERTY = "keccak.vector";
+	
+	/**
+	 * @return the number of states permuted together.
+	 */
+	int lanes();
+	
+	/**
+	 * Apply Keccak-f[1600] to states[from], ..., states[from + count - 1].
+	 * 
+	 * @param states the states, 25 lanes each, permuted in place.
+	 * @param from index of the first state.
+	 * @param count number of states.
+	 */
+	void permute(long[][] states, int from, int count);
+	
+	/**
+	 * Create a multi-buffer engine: the SIMD engine when the Vector API is
+	 * available and enabled, the scalar engine otherwise. Engines keep scratch
+	 * space, so each thread should hold its own instance.
+	 * 
+	 * @return a new engine
+	 */
+	static MultiKeccakEngine newInstance() {
+		if (Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+				&& ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				return (MultiKeccakEngine)Class.forName("VectorKeccakEngine")
+											   .getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// fall through to the scalar engine
+			}
+		}
+		return new Scalar();
+	}
+	
+	/**
+	 * The fallback engine: one state after the other.
+	 */
+	final class Scalar implements MultiKeccakEngine {
+		
+		private final KeccakEngine engine = KeccakEngine.newInstance();
+		
+		@Override
+		public int lanes() {
+			return 1;
+		}
+		
+		@Override
+		public void permute(final long[][] states, final int from, final int count) {
+			for (int i = from; i < from + count; i++) {
+				engine.permute(states[i]);
+			}
+		}
+	}
+}
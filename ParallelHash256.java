@@ -0,0 +1,202 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * ParallelHash256 and ParallelHashXOF256 based off of
+ * NIST SP 800-185: https://doi.org/10.6028/NIST.SP.800-185
+ * 
+ * The input is cut into blocks of B bytes, each block is hashed on its own
+ * with cSHAKE256(X_i, 512, "", "") and the chained values are then hashed
+ * with cSHAKE256(..., L, "ParallelHash", S). The leaf blocks are hashed on a
+ * ForkJoinPool, so hashing a large input scales with the number of cores.
+ * 
+ * @author Minh Nguyen
+ */
+public final class ParallelHash256 {
+	
+	/**
+	 * Block size used for file digests.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+	
+	/**
+	 * Size in bytes of a chained value: cSHAKE256(X_i, 512, "", "").
+	 */
+	private static final int CV_SIZE = 64;
+	
+	/**
+	 * Number of bytes below which a task hashes its blocks itself instead
+	 * of splitting them further.
+	 */
+	private static final long SPLIT_THRESHOLD = 1 << 20;
+	
+	/**
+	 * Number of blocks whose chained values are buffered before they are
+	 * absorbed into the outer sponge (1 MB of chained values).
+	 */
+	private static final int BATCH_BLOCKS = 1 << 14;
+	
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private ParallelHash256() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * ParallelHash256(X, B, L, S).
+	 * 
+	 * @param X the main input bit string of any length, including zero.
+	 * @param B the block size in bytes.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 */
+	public static byte[] hash(final byte[] X, final int B, final int L, final byte[] S) {
+		return digest(ByteBuffer.wrap(X), B, L, L, S);
+	}
+	
+	/**
+	 * ParallelHashXOF256(X, B, L, S).
+	 * 
+	 * @param X the main input bit string of any length, including zero.
+	 * @param B the block size in bytes.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 */
+	public static byte[] hashXOF(final byte[] X, final int B, final int L, final byte[] S) {
+		return digest(ByteBuffer.wrap(X), B, L, 0, S);
+	}
+	
+	/**
+	 * ParallelHash256(X, B, L, S) over the content of a file. The file is
+	 * memory-mapped in windows and never read into the heap.
+	 * 
+	 * @param file the file holding the main input.
+	 * @param B the block size in bytes.
+	 * @param L an integer representing the requested output length in bits.
+	 * @param S an optional customization bit string of any length, including zero.
+	 */
+	public static byte[] hash(final Path file, final int B, final int L, final byte[] S) throws IOException {
+		checkBlockSize(B);
+		CShakeStream outer = new CShakeStream().init("ParallelHash", S);
+		outer.update(HASH.left_encode(B));
+		
+		// windows hold a whole number of blocks so no block straddles two windows
+		long window = (CShakeStream.MAP_WINDOW / B) * B;
+		if (window == 0) {
+			window = B;
+		}
+		long n = 0;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long pos = 0; pos < size; pos += window) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, pos,
+													  Math.min(window, size - pos));
+				n += absorbLeaves(outer, mapped, B);
+			}
+		}
+		return finish(outer, n, L, L);
+	}
+	
+	/**
+	 * ParallelHash256 with the output length encoded as encodedL (L, or 0
+	 * for the XOF variant).
+	 */
+	private static byte[] digest(final ByteBuffer X, final int B, final int L, final int encodedL, final byte[] S) {
+		checkBlockSize(B);
+		CShakeStream outer = new CShakeStream().init("ParallelHash", S);
+		// z = left_encode(B) || z_0 || ... || z_n-1
+		outer.update(HASH.left_encode(B));
+		long n = absorbLeaves(outer, X, B);
+		return finish(outer, n, L, encodedL);
+	}
+	
+	/**
+	 * Hash the blocks of X in parallel and absorb their chained values, in
+	 * order, into the outer sponge.
+	 * 
+	 * @return the number of blocks
+	 */
+	private static long absorbLeaves(final CShakeStream outer, final ByteBuffer X, final int B) {
+		ByteBuffer x = X.slice();
+		long n = ((long) x.remaining() + B - 1) / B;
+		byte[] cvs = new byte[(int) Math.min(n, BATCH_BLOCKS) * CV_SIZE];
+		// hash and absorb the chained values a batch of blocks at a time
+		for (long first = 0; first < n; first += BATCH_BLOCKS) {
+			int count = (int) Math.min(n - first, BATCH_BLOCKS);
+			ForkJoinPool.commonPool().invoke(new LeafTask(x, B, first, 0, count, cvs));
+			outer.update(cvs, 0, count * CV_SIZE);
+		}
+		return n;
+	}
+	
+	/**
+	 * z = z || right_encode(n) || right_encode(L); return cSHAKE256(z, L, "ParallelHash", S)
+	 */
+	private static byte[] finish(final CShakeStream outer, final long n, final int L, final int encodedL) {
+		outer.update(HASH.right_encode(n));
+		outer.update(HASH.right_encode(encodedL));
+		return outer.finish(L);
+	}
+	
+	private static void checkBlockSize(final int B) {
+		if (B <= 0) {
+			throw new IllegalArgumentException("Validity condition not met; "
+												+ "B is not greater than zero.");
+		}
+	}
+	
+	/**
+	 * Hashes blocks [first + from, first + to) of the input into slots
+	 * [from, to) of cvs.
+	 */
+	private static final class LeafTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final ByteBuffer x;
+		private final int b;
+		private final long first;
+		private final int from;
+		private final int to;
+		private final byte[] cvs;
+		
+		LeafTask(final ByteBuffer theX, final int theB, final long theFirst,
+				 final int theFrom, final int theTo, final byte[] theCvs) {
+			x = theX;
+			b = theB;
+			first = theFirst;
+			from = theFrom;
+			to = theTo;
+			cvs = theCvs;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1 && (long)(to - from) * b > SPLIT_THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new LeafTask(x, b, first, from, mid, cvs), new LeafTask(x, b, first, mid, to, cvs));
+				return;
+			}
+			
+			// z_i = cSHAKE256(substring(X, i * B, (i + 1) * B), 512, "", "")
+			CShakeStream leaf = new CShakeStream();
+			for (int i = from; i < to; i++) {
+				// start <= x.limit(), so it fits in an int
+				int start = (int) ((first + i) * b);
+				int len = Math.min(b, x.limit() - start);
+				leaf.init("", null).update(x.slice(start, len)).squeeze(cvs, i * CV_SIZE, CV_SIZE);
+			}
+		}
+	}
+}
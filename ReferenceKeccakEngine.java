@@ -0,0 +1,133 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * The reference Keccak-f[1600] engine: the table-driven round loop of the
+ * C implementation of Markku-Juhani O. Saarinen <mjos@iki.fi>
+ * https://github.com/mjosaarinen/tiny_sha3/blob/master/sha3.c
+ * 
+ * @author Minh Nguyen
+ * @author Markku-Juhani O. Saarinen
+ */
+public class ReferenceKeccakEngine implements KeccakEngine {
+	
+    /**
+	 * The number of rounds (KECCAK-p permuntation).
+	 */
+	static final int ROUNDS = 24;
+	
+    /**
+     * Dimension of lanes.
+     */
+    private static final int DM = 5;
+
+    /**
+	 * Predefined set of 24 values that specifies how many bytes to shift on each round.
+	 * This is needed in the Iota step.
+	 */
+    static final long[] ROUND_CONSTANTS = 	
+    		{0x0000000000000001L, 0x0000000000008082L, 0x800000000000808aL,
+    		 0x8000000080008000L, 0x000000000000808bL, 0x0000000080000001L,
+    		 0x8000000080008081L, 0x8000000000008009L, 0x000000000000008aL,
+    		 0x0000000000000088L, 0x0000000080008009L, 0x000000008000000aL,
+    		 0x000000008000808bL, 0x800000000000008bL, 0x8000000000008089L,
+    		 0x8000000000008003L, 0x8000000000008002L, 0x8000000000000080L,
+    		 0x000000000000800aL, 0x800000008000000aL, 0x8000000080008081L,
+    		 0x8000000000008080L, 0x0000000080000001L, 0x8000000080008008L};
+    
+    /**
+	 * A set of rotation constants.
+	 */
+    private static final int[] ROTATION_CONSTANTS = 
+    	{1,  3,  6,  10, 15, 21, 28, 36, 45, 55, 2,  14,
+    	 27, 41, 56, 8,  25, 43, 62, 18, 39, 61, 20, 44};
+
+    private static final int[] PILN =
+		{10, 7,  11, 17, 18, 3, 5,  16, 8,  21, 24, 4,
+		 15, 23, 19, 13, 12, 2, 20, 14, 22, 9,  6,  1};
+    
+    /**
+     * Scratch lanes for theta and chi, allocated once per engine.
+     */
+    private final long[] bc = new long[DM];
+
+	/**
+	 * ----Mappings----
+	 * Apply the function Keccak-f permutation that is consist of 24 rounds.
+	 * Each round consists of sequence of 5 steps: theta, rho, pi, chi, iota.
+	 * Each step manipulates the entire state.
+	 * 
+	 * The state is permuted in place as lanes, so no endianess conversion
+	 * is needed around the rounds.
+	 * 
+	 * Method based off of the C implementation of Markku-Juhani O. Saarinen.
+	 * 
+	 * @param q the state lanes.
+	 * @param rounds the number of rounds; the last ones of the 24 are applied.
+	 * 
+	 */
+	@Override
+	public void permute(long[] q, int rounds) {
+		long t;
+
+		// actual iteration
+		// ------- Apply rounds -------
+		for (int round = ROUNDS - rounds; round < ROUNDS; round++) {
+
+			// Theta
+			for (int i = 0; i < DM; i++) {
+                bc[i] = q[i] ^ q[i + 5] ^ q[i + 10] ^ q[i + 15] ^ q[i + 20];
+            }
+			for (int i = 0; i < DM; i++) {
+				t = bc[(i + 4) % DM] ^ ROTL64(bc[(i + 1) % DM], 1);
+				for (int j = 0; j <= ROUNDS; j += DM) {
+					q[j + i] ^= t;
+				}
+			}
+
+			// Rho Pi
+			t = q[1];
+			for (int i = 0; i < ROUNDS; i++) {
+				int j = PILN[i];
+				bc[0] = q[j];
+				q[j] = ROTL64(t, ROTATION_CONSTANTS[i]);
+				t = bc[0];
+			}
+
+			//  Chi
+			for (int j = 0; j <= ROUNDS; j += 5) {
+				for (int i = 0; i < 5; i++) {
+                    bc[i] = q[j + i];
+                }
+				for (int i = 0; i < 5; i++) {
+                    q[j + i] ^= (~bc[(i + 1) % 5]) & bc[(i + 2) % 5];
+                }
+			}
+
+			//  Iota
+			q[0] ^= ROUND_CONSTANTS[round];
+		}
+	}
+	
+	@Override
+	public String name() {
+		return "reference";
+	}
+	
+	/**
+	 * Left rotate:
+	 * Rotate the bits of a lane by a length (offset) which depends on the fixed
+	 * X and Y coordinates of the lane.
+	 * 
+	 * Method based off of the C implementation of Markku-Juhani O. Saarinen.
+	 * 
+	 * @param theX the X coordinate of the lane.
+	 * @param theY the Y coordinate of the lane.
+	 * 
+	 * @return the rotated bits.
+	 */
+	private static long ROTL64(final long theX, final long theY) {
+		return (((theX) << (theY)) | ((theX) >>> (64 - (theY))));
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * Security level of the sponge-based functions, which fixes the capacity and
+ * so the rate of the sponge:
+ * - BITS_128: capacity 256 bits, rate 168 bytes (cSHAKE128, KMACXOF128, SHAKE128).
+ * - BITS_256: capacity 512 bits, rate 136 bytes (cSHAKE256, KMACXOF256, SHAKE256).
+ * 
+ * The 128-bit profile absorbs about 23% more data per permutation.
+ * 
+ * @author Minh Nguyen
+ */
+public enum SecurityProfile {
+	
+	BITS_128(256),
+	BITS_256(512);
+	
+	/**
+	 * Name of the system property that selects the profile used for hashing
+	 * and tagging: "128" or "256" (default).
+	 */
+	public static final String PROFILE_PROPERTY = "hash.security";
+	
+	private final int capacity;
+	
+	SecurityProfile(final int theCapacity) {
+		capacity = theCapacity;
+	}
+	
+	/**
+	 * @return the capacity in bits.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+	
+	/**
+	 * @return the rate in bytes: the width minus the capacity.
+	 */
+	public int rate() {
+		return KeccakSponge.WIDTH - capacity / 8;
+	}
+	
+	/**
+	 * @return the security level in bits.
+	 */
+	public int bits() {
+		return capacity / 2;
+	}
+	
+	/**
+	 * @return the profile selected by the hash.security system property.
+	 */
+	public static SecurityProfile fromSystemProperty() {
+		String choice = System.getProperty(PROFILE_PROPERTY, "256");
+		if (choice.equals("128")) {
+			return BITS_128;
+		} else if (choice.equals("256")) {
+			return BITS_256;
+		}
+		throw new IllegalArgumentException("Unknown security level: " + choice);
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Read-only, random-access view of the plaintext of a seekable symmetric
+ * cryptogram (version 3 of SymmetricFileCipher).
+ *
+ * The plaintext is split into segments m_0 .. m_{n-1} of S bytes (the last
+ * one may be shorter, and is empty only if m is), each stored with its own
+ * encrypt-then-MAC tag:
+ *
+ * c_i <- KMACXOF256(ke, right_encode(i), |m_i|, “SKE”) XOR m_i
+ * t_i <- KMACXOF256(ka, c_i || right_encode(i) || right_encode(last), 512, “SKS”)
+ *
+ * where last is 1 for the final segment and 0 otherwise, so truncation and
+ * reordering are detected. A read only fetches, verifies and decrypts the
+ * segments it touches; the most recently decrypted segment is kept.
+ *
+ * File layout: magic (4) || version (1) || S (4) || z (64) || c_0 || t_0 || .. || c_{n-1} || t_{n-1}
+ *
+ * @author Minh Nguyen
+ */
+final class SeekableCryptogramChannel implements SeekableByteChannel {
+
+	private static final int TAG_LENGTH = SymmetricFileCipher.TAG_LENGTH;
+
+	private final FileChannel file;
+	private final int segmentSize;
+	private final byte[] ke;
+	private final byte[] ka;
+
+	/**
+	 * Number of segments and plaintext size.
+	 */
+	private final long segments;
+	private final long size;
+
+	/**
+	 * The decrypted segment held in segment, or -1.
+	 */
+	private long current = -1;
+	private final byte[] segment;
+	private final byte[] expected = new byte[TAG_LENGTH];
+
+	private long position;
+	private boolean open = true;
+
+	/**
+	 * Open a view over a seekable cryptogram whose header has been checked.
+	 *
+	 * @param theFile the cryptogram file
+	 * @param theSegmentSize the segment size S from the header
+	 * @param theKe the encryption key
+	 * @param theKa the authentication key
+	 * @throws IOException if the file length is not a valid cryptogram length
+	 */
+	SeekableCryptogramChannel(final FileChannel theFile, final int theSegmentSize,
+							  final byte[] theKe, final byte[] theKa) throws IOException {
+		file = theFile;
+		segmentSize = theSegmentSize;
+		ke = theKe;
+		ka = theKa;
+		segment = new byte[theSegmentSize + TAG_LENGTH];
+
+		long payload = file.size() - SymmetricFileCipher.PARALLEL_HEADER_LENGTH;
+		long stride = (long)segmentSize + TAG_LENGTH;
+		segments = (payload + stride - 1) / stride;
+		long last = payload - (segments - 1) * stride - TAG_LENGTH;
+		if (payload < TAG_LENGTH || last < 0 || (last == 0 && segments > 1)) {
+			throw new EOFException("Truncated seekable cryptogram");
+		}
+		size = (segments - 1) * segmentSize + last;
+	}
+
+	@Override
+	public synchronized int read(final ByteBuffer dst) throws IOException {
+		ensureOpen();
+		if (position >= size) {
+			if (size == 0) {
+				load(0);		// an empty message is still authenticated
+			}
+			return -1;
+		}
+		int total = 0;
+		while (dst.hasRemaining() && position < size) {
+			long i = position / segmentSize;
+			int len = load(i);
+			int from = (int)(position - i * segmentSize);
+			int n = Math.min(dst.remaining(), len - from);
+			dst.put(segment, from, n);
+			position += n;
+			total += n;
+		}
+		return total;
+	}
+
+	@Override
+	public int write(final ByteBuffer src) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized long position() throws IOException {
+		ensureOpen();
+		return position;
+	}
+
+	@Override
+	public synchronized SeekableByteChannel position(final long newPosition) throws IOException {
+		ensureOpen();
+		if (newPosition < 0) {
+			throw new IllegalArgumentException("Negative position");
+		}
+		position = newPosition;
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		return size;
+	}
+
+	@Override
+	public SeekableByteChannel truncate(final long newSize) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (open) {
+			open = false;
+			Arrays.fill(segment, (byte)0);
+			file.close();
+		}
+	}
+
+	/**
+	 * Fetch, verify and decrypt segment i into segment, unless it is already
+	 * there.
+	 *
+	 * @return the length of the segment
+	 * @throws IOException if the segment fails authentication
+	 */
+	private int load(final long i) throws IOException {
+		int len = (int)Math.min(segmentSize, size - i * segmentSize);
+		if (i == current) {
+			return len;
+		}
+		current = -1;
+		long offset = SymmetricFileCipher.PARALLEL_HEADER_LENGTH + i * ((long)segmentSize + TAG_LENGTH);
+		if (!SymmetricFileCipher.readFully(file, ByteBuffer.wrap(segment, 0, len + TAG_LENGTH), offset)) {
+			throw new EOFException();
+		}
+		if (!openSegment(ke, ka, i, i == segments - 1, segment, 0, len, expected)) {
+			throw new AuthenticationException("Segment " + i + " of the cryptogram failed authentication");
+		}
+		current = i;
+		return len;
+	}
+
+	private void ensureOpen() throws ClosedChannelException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	/**
+	 * Thrown by read when a segment fails authentication, i.e. the pass-phrase
+	 * is wrong or the cryptogram has been modified.
+	 */
+	static final class AuthenticationException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		AuthenticationException(final String theMessage) {
+			super(theMessage);
+		}
+	}
+
+	/**
+	 * Encrypt segment i in place and write its tag right after it:
+	 * buf[off, off + len) <- c_i, buf[off + len, off + len + 64) <- t_i
+	 */
+	static void sealSegment(final byte[] ke, final byte[] ka, final long i, final boolean last,
+					 final byte[] buf, final int off, final int len) {
+		applyKeystream(ke, i, buf, off, len);
+		segmentTag(ka, i, last, buf, off, len, buf, off + len);
+	}
+
+	/**
+	 * Verify the tag stored after segment i and, if it matches, decrypt the
+	 * segment in place.
+	 *
+	 * @param scratch a buffer of 64 bytes for the expected tag
+	 * @return whether the tag verified
+	 */
+	static boolean openSegment(final byte[] ke, final byte[] ka, final long i, final boolean last,
+						final byte[] buf, final int off, final int len, final byte[] scratch) {
+		segmentTag(ka, i, last, buf, off, len, scratch, 0);
+		if (!MessageDigest.isEqual(scratch, Arrays.copyOfRange(buf, off + len, off + len + TAG_LENGTH))) {
+			return false;
+		}
+		applyKeystream(ke, i, buf, off, len);
+		return true;
+	}
+
+	/**
+	 * buf <- KMACXOF256(ke, right_encode(i), len, “SKE”) XOR buf
+	 */
+	private static void applyKeystream(final byte[] ke, final long i, final byte[] buf, final int off, final int len) {
+		KmacXofStream stream = StreamPool.kmac(SecurityProfile.BITS_256, ke, "SKE".getBytes());
+		try {
+			stream.update(HASH.right_encode(i)).squeezeXor(buf, off, buf, off, len);
+		} finally {
+			StreamPool.release(stream);
+		}
+	}
+
+	/**
+	 * t_i <- KMACXOF256(ka, c_i || right_encode(i) || right_encode(last), 512, “SKS”)
+	 */
+	private static void segmentTag(final byte[] ka, final long i, final boolean last, final byte[] c, final int off,
+							final int len, final byte[] out, final int outOff) {
+		KmacXofStream stream = StreamPool.kmac(SecurityProfile.BITS_256, ka, "SKS".getBytes());
+		try {
+			stream.update(c, off, len)
+				  .update(HASH.right_encode(i))
+				  .update(HASH.right_encode(last ? 1 : 0))
+				  .squeeze(out, outOff, TAG_LENGTH);
+		} finally {
+			StreamPool.release(stream);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+
+/**
+ * Per-thread pool of cSHAKE and KMACXOF streams backing the static entry
+ * points of {@link HASH}.
+ * 
+ * Each thread keeps a few idle streams per security profile, so concurrent
+ * callers never share a sponge, take no lock, and do not allocate a new
+ * state per call. A stream is always initialized on acquire, which resets
+ * its sponge, and must be handed back with release once its output has
+ * been read.
+ * 
+ * @author Minh Nguyen
+ */
+final class StreamPool {
+	
+	/**
+	 * Maximum number of idle streams of one kind a thread keeps.
+	 */
+	private static final int MAX_IDLE = 4;
+	
+	private static final ThreadLocal<StreamPool> POOL = ThreadLocal.withInitial(StreamPool::new);
+	
+	private final EnumMap<SecurityProfile, ArrayDeque<CShakeStream>> cshake = newQueues();
+	private final EnumMap<SecurityProfile, ArrayDeque<KmacXofStream>> kmac = newQueues();
+	
+	private StreamPool() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * Acquire a cSHAKE stream, initialized with init(N, S).
+	 */
+	static CShakeStream cshake(final SecurityProfile profile, final String N, final byte[] S) {
+		CShakeStream stream = POOL.get().cshake.get(profile).pollFirst();
+		if (stream == null) {
+			stream = new CShakeStream(profile);
+		}
+		return stream.init(N, S);
+	}
+	
+	/**
+	 * Acquire a KMACXOF stream, initialized with init(K, S).
+	 */
+	static KmacXofStream kmac(final SecurityProfile profile, final byte[] K, final byte[] S) {
+		KmacXofStream stream = POOL.get().kmac.get(profile).pollFirst();
+		if (stream == null) {
+			stream = new KmacXofStream(profile);
+		}
+		return stream.init(K, S);
+	}
+	
+	/**
+	 * Hand a stream back to the calling thread's pool. The stream must not be
+	 * used afterwards.
+	 */
+	static void release(final CShakeStream stream) {
+		StreamPool pool = POOL.get();
+		if (stream instanceof KmacXofStream) {
+			ArrayDeque<KmacXofStream> idle = pool.kmac.get(stream.profile);
+			if (idle.size() < MAX_IDLE) {
+				idle.addFirst((KmacXofStream)stream);
+			}
+		} else {
+			ArrayDeque<CShakeStream> idle = pool.cshake.get(stream.profile);
+			if (idle.size() < MAX_IDLE) {
+				idle.addFirst(stream);
+			}
+		}
+	}
+	
+	/**
+	 * One empty queue per security profile.
+	 */
+	private static <T> EnumMap<SecurityProfile, ArrayDeque<T>> newQueues() {
+		EnumMap<SecurityProfile, ArrayDeque<T>> queues = new EnumMap<>(SecurityProfile.class);
+		for (SecurityProfile profile : SecurityProfile.values()) {
+			queues.put(profile, new ArrayDeque<>(MAX_IDLE));
+		}
+		return queues;
+	}
+}
@@ -5,6 +5,9 @@ import java.io.Serializable;
 /**
  * Symmetric cryptogram.
  * 
+ * Written and read with CryptogramFiles; it stays Serializable only so that
+ * files from earlier versions can still be read by HASH.readCryptogramFromFile.
+ * 
  * @author Minh Ngyen
  */
 public class SymmetricCrytogram implements Serializable {
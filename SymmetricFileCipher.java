@@ -0,0 +1,725 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Streaming symmetric encryption of files under a pass-phrase.
+ *
+ * The cryptogram is the same (z, c, t) as HASH.encryptSymmetrically, with the
+ * same key derivation, but the file is read, encrypted and written a chunk at
+ * a time so the heap use does not depend on the file size:
+ *
+ * (ke || ka) <- KMACXOF256(z || pw, “”, 1024, “S”)
+ * c <- KMACXOF256(ke, “”, |m|, “SKE”) XOR m
+ * t <- KMACXOF256(ka, m, 512, “SKA”)
+ *
+ * File layout (version 1): magic (4) || version (1) || z (64) || c (|m|) || t (64)
+ *
+ * Version 2 splits m into chunks m_0 .. m_{n-1} of B bytes (the last one may
+ * be shorter) that are encrypted and authenticated independently, on all
+ * cores, with positional channel I/O:
+ *
+ * c_i <- KMACXOF256(ke, right_encode(i), |m_i|, “SKE”) XOR m_i
+ * t_i <- KMACXOF256(ka, m_i || right_encode(i), 512, “SKA”)
+ * t <- KMACXOF256(ka, t_0 || .. || t_{n-1} || right_encode(n) || right_encode(|m|), 512, “SKT”)
+ *
+ * File layout (version 2): magic (4) || version (1) || B (4) || z (64) || c (|m|) || t (64)
+ *
+ * Version 4, which encryptParallel writes, is version 2 with a key
+ * commitment kc after z, so that a wrong pass-phrase is rejected from the
+ * header alone, before any of c is read:
+ *
+ * kc <- KMACXOF256(ke || ka, “”, 256, “SKC”)
+ *
+ * File layout (version 4): magic (4) || version (1) || B (4) || z (64) || kc (32) || c (|m|) || t (64)
+ *
+ * Version 3 is seekable: every segment of S bytes carries its own keystream
+ * and tag, so any byte range can be read back through openSeekable by
+ * verifying and decrypting only the segments it touches (see
+ * SeekableCryptogramChannel for the construction and layout).
+ *
+ * The output is written to a temporary file next to the destination and
+ * only moved into place once complete (and, when decrypting, once the tag
+ * has been verified), so the destination may be the source file itself.
+ *
+ * @author Minh Nguyen
+ */
+public final class SymmetricFileCipher {
+
+	/**
+	 * File magic, "KXSC".
+	 */
+	static final int MAGIC = 0x4B585343;
+
+	/**
+	 * Format version of the sequential streaming cryptogram.
+	 */
+	static final byte VERSION_STREAM = 1;
+
+	/**
+	 * Format version of the parallel chunked cryptogram.
+	 */
+	static final byte VERSION_PARALLEL = 2;
+
+	/**
+	 * Format version of the seekable segmented cryptogram.
+	 */
+	static final byte VERSION_SEEKABLE = 3;
+
+	/**
+	 * Format version of the parallel chunked cryptogram with a key commitment.
+	 */
+	static final byte VERSION_COMMITTED = 4;
+
+	/**
+	 * Length of the nonce z in bytes.
+	 */
+	static final int Z_LENGTH = 64;
+
+	/**
+	 * Length of the authentication tag t in bytes.
+	 */
+	static final int TAG_LENGTH = 64;
+
+	/**
+	 * Length of the header (magic, version, z) in bytes.
+	 */
+	static final int HEADER_LENGTH = 4 + 1 + Z_LENGTH;
+
+	/**
+	 * Length of the version 2 and 3 header (magic, version, B or S, z) in bytes.
+	 */
+	static final int PARALLEL_HEADER_LENGTH = 4 + 1 + 4 + Z_LENGTH;
+
+	/**
+	 * Length of the key commitment kc in bytes.
+	 */
+	static final int COMMITMENT_LENGTH = 32;
+
+	/**
+	 * Length of the version 4 header (magic, version, B, z, kc) in bytes.
+	 */
+	static final int COMMITTED_HEADER_LENGTH = PARALLEL_HEADER_LENGTH + COMMITMENT_LENGTH;
+
+	/**
+	 * Size of the chunks the file is processed in.
+	 */
+	static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Default chunk size B of the parallel mode.
+	 */
+	public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Default segment size S of the seekable mode.
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 1 << 16;
+
+	/**
+	 * Smallest and largest chunk size B or segment size S accepted by the
+	 * parallel and seekable modes.
+	 */
+	static final int MIN_PARALLEL_CHUNK_SIZE = 1 << 12;
+	static final int MAX_PARALLEL_CHUNK_SIZE = 1 << 26;
+
+	/**
+	 * Per-thread chunk buffer of the parallel mode. It is zeroed after every
+	 * chunk, and only kept between chunks up to the default chunk size.
+	 */
+	private static final ThreadLocal<byte[]> PARALLEL_BUFFER = ThreadLocal.withInitial(() -> new byte[0]);
+
+	private SymmetricFileCipher() {
+		// DO NOTHING
+	}
+
+	/**
+	 * Encrypt a file under a pass-phrase.
+	 *
+	 * @param in the plaintext file
+	 * @param out the cryptogram file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 */
+	public static void encrypt(final Path in, final Path out, final byte[] pw) throws IOException {
+		final byte[] z = new byte[Z_LENGTH];
+		KeccakDrbg.nextBytes(z);							// z <- Random(512)
+
+		byte[] ke_ka = keys(z, pw);
+		FusedCipher cipher = new FusedCipher(
+				new KmacXofStream().init(Arrays.copyOfRange(ke_ka, 0, 64), "SKE".getBytes()),
+				new KmacXofStream().init(Arrays.copyOfRange(ke_ka, 64, 128), "SKA".getBytes()));
+
+		Path tmp = tempFileFor(out);
+		try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+			 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+			header.putInt(MAGIC).put(VERSION_STREAM).put(z).flip();
+			writeFully(dst, header);
+
+			byte[] chunk = new byte[CHUNK_SIZE];
+			ByteBuffer buffer = ByteBuffer.wrap(chunk);
+			int n;
+			while ((n = src.read(buffer.clear())) >= 0) {
+				cipher.encrypt(chunk, 0, chunk, 0, n);		// c <- keystream XOR m, t absorbs m
+				writeFully(dst, buffer.flip());
+			}
+			writeFully(dst, ByteBuffer.wrap(cipher.tag(8 * TAG_LENGTH)));
+			dst.force(false);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Encrypt a file under a pass-phrase in the parallel chunked mode
+	 * (version 4), with the default chunk size.
+	 *
+	 * @param in the plaintext file
+	 * @param out the cryptogram file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 */
+	public static void encryptParallel(final Path in, final Path out, final byte[] pw) throws IOException {
+		encryptParallel(in, out, pw, DEFAULT_PARALLEL_CHUNK_SIZE);
+	}
+
+	/**
+	 * Encrypt a file under a pass-phrase in the parallel chunked mode
+	 * (version 4). The chunks are processed on the common fork-join pool.
+	 *
+	 * @param in the plaintext file
+	 * @param out the cryptogram file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 * @param chunkSize the chunk size B, a power of two from 4 KB to 64 MB
+	 */
+	public static void encryptParallel(final Path in, final Path out, final byte[] pw,
+									   final int chunkSize) throws IOException {
+		if (!isValidChunkSize(chunkSize)) {
+			throw new IllegalArgumentException("Invalid chunk size " + chunkSize);
+		}
+		final byte[] z = new byte[Z_LENGTH];
+		KeccakDrbg.nextBytes(z);							// z <- Random(512)
+		byte[] ke_ka = keys(z, pw);
+
+		Path tmp = tempFileFor(out);
+		try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+			 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			long length = src.size();
+			ByteBuffer header = ByteBuffer.allocate(COMMITTED_HEADER_LENGTH);
+			header.putInt(MAGIC).put(VERSION_COMMITTED).putInt(chunkSize).put(z).put(commitment(ke_ka)).flip();
+			writeFully(dst, header, 0);
+
+			byte[] t = parallel(true, src, 0, dst, COMMITTED_HEADER_LENGTH, length, chunkSize, ke_ka);
+			writeFully(dst, ByteBuffer.wrap(t), COMMITTED_HEADER_LENGTH + length);
+			dst.force(false);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Encrypt a file under a pass-phrase in the seekable mode (version 3),
+	 * with the default segment size.
+	 *
+	 * @param in the plaintext file
+	 * @param out the cryptogram file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 */
+	public static void encryptSeekable(final Path in, final Path out, final byte[] pw) throws IOException {
+		encryptSeekable(in, out, pw, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Encrypt a file under a pass-phrase in the seekable mode (version 3).
+	 *
+	 * @param in the plaintext file
+	 * @param out the cryptogram file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 * @param segmentSize the segment size S, a power of two from 4 KB to 64 MB
+	 */
+	public static void encryptSeekable(final Path in, final Path out, final byte[] pw,
+									   final int segmentSize) throws IOException {
+		if (!isValidChunkSize(segmentSize)) {
+			throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+		}
+		final byte[] z = new byte[Z_LENGTH];
+		KeccakDrbg.nextBytes(z);							// z <- Random(512)
+		byte[] ke_ka = keys(z, pw);
+		byte[] ke = Arrays.copyOfRange(ke_ka, 0, 64);
+		byte[] ka = Arrays.copyOfRange(ke_ka, 64, 128);
+
+		Path tmp = tempFileFor(out);
+		try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+			 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(PARALLEL_HEADER_LENGTH);
+			header.putInt(MAGIC).put(VERSION_SEEKABLE).putInt(segmentSize).put(z).flip();
+			writeFully(dst, header);
+
+			// at least one segment, so that an empty message still carries a tag
+			long length = src.size();
+			long n = Math.max(1, (length + segmentSize - 1) / segmentSize);
+			byte[] segment = new byte[segmentSize + TAG_LENGTH];
+			for (long i = 0; i < n; i++) {
+				int len = (int)Math.min(segmentSize, length - i * segmentSize);
+				if (!readFully(src, ByteBuffer.wrap(segment, 0, len))) {
+					throw new EOFException(in + " changed while it was being encrypted");
+				}
+				SeekableCryptogramChannel.sealSegment(ke, ka, i, i == n - 1, segment, 0, len);
+				writeFully(dst, ByteBuffer.wrap(segment, 0, len + TAG_LENGTH));
+			}
+			dst.force(false);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(tmp);
+			throw e;
+		}
+		Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Open a read-only, random-access view of the plaintext of a seekable
+	 * cryptogram (version 3). Reads verify and decrypt only the segments they
+	 * touch, and fail with an IOException if one of them does not
+	 * authenticate.
+	 *
+	 * @param in the cryptogram file
+	 * @param pw the pass-phrase
+	 * @return the plaintext view, which must be closed
+	 * @throws IOException if in is not a seekable cryptogram or cannot be read
+	 */
+	public static SeekableByteChannel openSeekable(final Path in, final byte[] pw) throws IOException {
+		FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+		try {
+			ByteBuffer prefix = ByteBuffer.allocate(5);
+			if (!readFully(src, prefix) || prefix.getInt(0) != MAGIC) {
+				throw new IOException(in + " is not a symmetric cryptogram");
+			}
+			if (prefix.get(4) != VERSION_SEEKABLE) {
+				throw new IOException(in + " is not a seekable cryptogram");
+			}
+			return seekableView(src, pw);
+		} catch (IOException | RuntimeException e) {
+			src.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Decrypt a cryptogram file under a pass-phrase. The plaintext only
+	 * replaces out if the authentication tag verifies.
+	 *
+	 * @param in the cryptogram file
+	 * @param out the plaintext file, which may be the same file as in
+	 * @param pw the pass-phrase
+	 * @return true if the tag verified and out was written, false otherwise
+	 * @throws IOException if in is not a streaming cryptogram or cannot be read
+	 */
+	public static boolean decrypt(final Path in, final Path out, final byte[] pw) throws IOException {
+		Path tmp = tempFileFor(out);
+		boolean accepted = false;
+		try (FileChannel src = FileChannel.open(in, StandardOpenOption.READ);
+			 FileChannel dst = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			ByteBuffer prefix = ByteBuffer.allocate(5);
+			if (!readFully(src, prefix) || prefix.getInt(0) != MAGIC) {
+				throw new IOException(in + " is not a symmetric cryptogram");
+			}
+			switch (prefix.get(4)) {
+			case VERSION_STREAM:
+				accepted = decryptStream(src, dst, pw);
+				break;
+			case VERSION_PARALLEL:
+				accepted = decryptParallel(src, dst, pw, false);
+				break;
+			case VERSION_COMMITTED:
+				accepted = decryptParallel(src, dst, pw, true);
+				break;
+			case VERSION_SEEKABLE:
+				accepted = decryptSeekable(src, dst, pw);
+				break;
+			default:
+				throw new IOException("Unsupported cryptogram version " + prefix.get(4));
+			}
+			if (accepted) {
+				dst.force(false);
+			}
+		} catch (EOFException e) {
+			throw new EOFException(in + " is truncated");
+		} finally {
+			if (!accepted) {
+				Files.deleteIfExists(tmp);
+			}
+		}
+		if (accepted) {
+			Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		return accepted;
+	}
+
+	/**
+	 * Decrypt the rest of a version 1 cryptogram, after its magic and version.
+	 *
+	 * @return whether the tag verified
+	 */
+	private static boolean decryptStream(final FileChannel src, final FileChannel dst,
+										 final byte[] pw) throws IOException {
+		long length = src.size() - HEADER_LENGTH - TAG_LENGTH;
+		ByteBuffer z = ByteBuffer.allocate(Z_LENGTH);
+		if (length < 0 || !readFully(src, z)) {
+			throw new EOFException();
+		}
+		byte[] ke_ka = keys(z.array(), pw);
+		FusedCipher cipher = new FusedCipher(
+				new KmacXofStream().init(Arrays.copyOfRange(ke_ka, 0, 64), "SKE".getBytes()),
+				new KmacXofStream().init(Arrays.copyOfRange(ke_ka, 64, 128), "SKA".getBytes()));
+
+		byte[] chunk = new byte[CHUNK_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(chunk);
+		for (long remaining = length; remaining > 0; ) {
+			int n = (int)Math.min(CHUNK_SIZE, remaining);
+			if (!readFully(src, buffer.clear().limit(n))) {
+				throw new EOFException();
+			}
+			cipher.decrypt(chunk, 0, chunk, 0, n);		// m <- keystream XOR c, t' absorbs m
+			writeFully(dst, buffer.flip());
+			remaining -= n;
+		}
+
+		ByteBuffer t = ByteBuffer.allocate(TAG_LENGTH);
+		if (!readFully(src, t)) {
+			throw new EOFException();
+		}
+		// accept if, and only if, t’ = t
+		return MessageDigest.isEqual(t.array(), cipher.tag(8 * TAG_LENGTH));
+	}
+
+	/**
+	 * Decrypt the rest of a version 2 or 4 cryptogram, after its magic and
+	 * version. For version 4 the key commitment is checked first, and a
+	 * mismatch returns before any of c is read.
+	 *
+	 * @param committed whether the header carries a key commitment (version 4)
+	 * @return whether the key commitment and the tag verified
+	 */
+	private static boolean decryptParallel(final FileChannel src, final FileChannel dst,
+										   final byte[] pw, final boolean committed) throws IOException {
+		int headerLength = committed ? COMMITTED_HEADER_LENGTH : PARALLEL_HEADER_LENGTH;
+		long length = src.size() - headerLength - TAG_LENGTH;
+		ByteBuffer header = ByteBuffer.allocate(headerLength - 5);
+		if (length < 0 || !readFully(src, header)) {
+			throw new EOFException();
+		}
+		int chunkSize = header.getInt(0);
+		if (!isValidChunkSize(chunkSize)) {
+			throw new IOException("Invalid chunk size " + chunkSize);
+		}
+		byte[] ke_ka = keys(Arrays.copyOfRange(header.array(), 4, 4 + Z_LENGTH), pw);
+		if (committed && !MessageDigest.isEqual(commitment(ke_ka),
+				Arrays.copyOfRange(header.array(), 4 + Z_LENGTH, 4 + Z_LENGTH + COMMITMENT_LENGTH))) {
+			return false;
+		}
+
+		byte[] t_prime = parallel(false, src, headerLength, dst, 0, length, chunkSize, ke_ka);
+		ByteBuffer t = ByteBuffer.allocate(TAG_LENGTH);
+		if (!readFully(src, t, headerLength + length)) {
+			throw new EOFException();
+		}
+		// accept if, and only if, t’ = t
+		return MessageDigest.isEqual(t.array(), t_prime);
+	}
+
+	/**
+	 * Decrypt the rest of a version 3 cryptogram, after its magic and version.
+	 *
+	 * @return whether every segment verified
+	 */
+	private static boolean decryptSeekable(final FileChannel src, final FileChannel dst,
+										   final byte[] pw) throws IOException {
+		// the view reads with positional I/O and is not closed here, src is
+		SeekableCryptogramChannel view = seekableView(src, pw);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		try {
+			while (view.read(buffer.clear()) > 0) {
+				writeFully(dst, buffer.flip());
+			}
+		} catch (SeekableCryptogramChannel.AuthenticationException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Read the segment size and z of a version 3 cryptogram, after its magic
+	 * and version, and open a plaintext view over it.
+	 */
+	private static SeekableCryptogramChannel seekableView(final FileChannel src, final byte[] pw) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(4 + Z_LENGTH);
+		if (!readFully(src, header, 5)) {
+			throw new EOFException();
+		}
+		int segmentSize = header.getInt(0);
+		if (!isValidChunkSize(segmentSize)) {
+			throw new IOException("Invalid segment size " + segmentSize);
+		}
+		byte[] ke_ka = keys(Arrays.copyOfRange(header.array(), 4, 4 + Z_LENGTH), pw);
+		return new SeekableCryptogramChannel(src, segmentSize,
+				Arrays.copyOfRange(ke_ka, 0, 64), Arrays.copyOfRange(ke_ka, 64, 128));
+	}
+
+	/**
+	 * Encrypt or decrypt length bytes from src to dst in chunks of chunkSize
+	 * bytes on the common fork-join pool, and compute the tag over the
+	 * plaintext chunks.
+	 *
+	 * @return the tag t
+	 */
+	private static byte[] parallel(final boolean encrypt, final FileChannel src, final long srcOff,
+								   final FileChannel dst, final long dstOff, final long length,
+								   final int chunkSize, final byte[] ke_ka) throws IOException {
+		long n = (length + chunkSize - 1) / chunkSize;
+		if (n > Integer.MAX_VALUE / TAG_LENGTH) {
+			throw new IOException("File too large for chunk size " + chunkSize);
+		}
+		ChunkJob job = new ChunkJob(encrypt, src, srcOff, dst, dstOff, length, chunkSize,
+									Arrays.copyOfRange(ke_ka, 0, 64), Arrays.copyOfRange(ke_ka, 64, 128),
+									new byte[(int)n * TAG_LENGTH]);
+		try {
+			ForkJoinPool.commonPool().invoke(new ChunkTask(job, 0, (int)n));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		// t <- KMACXOF256(ka, t_0 || .. || t_{n-1} || right_encode(n) || right_encode(|m|), 512, “SKT”)
+		return new KmacXofStream().init(job.ka, "SKT".getBytes())
+				.update(job.tags)
+				.update(HASH.right_encode(n))
+				.update(HASH.right_encode(length))
+				.finish(8 * TAG_LENGTH);
+	}
+
+	/**
+	 * Whether a file starts with the magic of a streaming cryptogram.
+	 */
+	public static boolean isCryptogram(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			return readFully(channel, magic) && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	/////// HELPER METHODS /////////
+
+	/**
+	 * (ke || ka) <- KMACXOF256(z || pw, “”, 1024, “S”)
+	 */
+	private static byte[] keys(final byte[] z, final byte[] pw) {
+		return HASH.KMACXOF256(HASH.combineArrays(z, pw), "".getBytes(), 1024, "S".getBytes());
+	}
+
+	/**
+	 * kc <- KMACXOF256(ke || ka, “”, 256, “SKC”)
+	 */
+	private static byte[] commitment(final byte[] ke_ka) {
+		return HASH.KMACXOF256(ke_ka, "".getBytes(), 8 * COMMITMENT_LENGTH, "SKC".getBytes());
+	}
+
+	/**
+	 * Whether a chunk size is a power of two within the accepted range.
+	 */
+	private static boolean isValidChunkSize(final int chunkSize) {
+		return Integer.bitCount(chunkSize) == 1
+				&& chunkSize >= MIN_PARALLEL_CHUNK_SIZE && chunkSize <= MAX_PARALLEL_CHUNK_SIZE;
+	}
+
+	/**
+	 * Create an empty temporary file in the directory of a destination, so it
+	 * can be moved onto the destination atomically.
+	 */
+	static Path tempFileFor(final Path out) throws IOException {
+		Path dir = out.toAbsolutePath().getParent();
+		return Files.createTempFile(dir, "." + out.getFileName(), ".tmp");
+	}
+
+	/**
+	 * Fill the remaining part of a buffer from a channel.
+	 *
+	 * @return false if the channel ended first
+	 */
+	static boolean readFully(final FileChannel channel, final ByteBuffer dst) throws IOException {
+		while (dst.hasRemaining()) {
+			if (channel.read(dst) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Fill the remaining part of a buffer from a channel, starting at the
+	 * given file position, without moving the channel's position.
+	 *
+	 * @return false if the channel ended first
+	 */
+	static boolean readFully(final FileChannel channel, final ByteBuffer dst, long position) throws IOException {
+		while (dst.hasRemaining()) {
+			int n = channel.read(dst, position);
+			if (n < 0) {
+				return false;
+			}
+			position += n;
+		}
+		return true;
+	}
+
+	/**
+	 * Write the remaining part of a buffer to a channel.
+	 */
+	static void writeFully(final FileChannel channel, final ByteBuffer src) throws IOException {
+		while (src.hasRemaining()) {
+			channel.write(src);
+		}
+	}
+
+	/**
+	 * Write the remaining part of a buffer to a channel, starting at the given
+	 * file position, without moving the channel's position.
+	 */
+	static void writeFully(final FileChannel channel, final ByteBuffer src, long position) throws IOException {
+		while (src.hasRemaining()) {
+			position += channel.write(src, position);
+		}
+	}
+
+	/**
+	 * The shared parameters of one parallel encryption or decryption.
+	 */
+	private static final class ChunkJob {
+
+		final boolean encrypt;
+		final FileChannel src;
+		final long srcOff;
+		final FileChannel dst;
+		final long dstOff;
+		final long length;
+		final int chunkSize;
+		final byte[] ke;
+		final byte[] ka;
+
+		/**
+		 * The chunk tags t_0 .. t_{n-1}.
+		 */
+		final byte[] tags;
+
+		ChunkJob(final boolean theEncrypt, final FileChannel theSrc, final long theSrcOff,
+				 final FileChannel theDst, final long theDstOff, final long theLength,
+				 final int theChunkSize, final byte[] theKe, final byte[] theKa, final byte[] theTags) {
+			encrypt = theEncrypt;
+			src = theSrc;
+			srcOff = theSrcOff;
+			dst = theDst;
+			dstOff = theDstOff;
+			length = theLength;
+			chunkSize = theChunkSize;
+			ke = theKe;
+			ka = theKa;
+			tags = theTags;
+		}
+	}
+
+	/**
+	 * Encrypts or decrypts the chunks [from, to) of a job, splitting the range
+	 * down to single chunks.
+	 */
+	private static final class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient ChunkJob job;
+		private final int from;
+		private final int to;
+
+		ChunkTask(final ChunkJob theJob, final int theFrom, final int theTo) {
+			job = theJob;
+			from = theFrom;
+			to = theTo;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new ChunkTask(job, from, mid), new ChunkTask(job, mid, to));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				try {
+					chunk(i);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+
+		private void chunk(final int i) throws IOException {
+			long off = (long)i * job.chunkSize;
+			int len = (int)Math.min(job.chunkSize, job.length - off);
+			byte[] chunk = PARALLEL_BUFFER.get();
+			if (chunk.length < len) {
+				chunk = new byte[job.chunkSize];
+				PARALLEL_BUFFER.set(chunk);
+			}
+			try {
+				process(i, chunk, len, off);
+			} finally {
+				// the buffer held plaintext; keep only small ones for the next chunk
+				Arrays.fill(chunk, 0, len, (byte)0);
+				if (chunk.length > DEFAULT_PARALLEL_CHUNK_SIZE) {
+					PARALLEL_BUFFER.remove();
+				}
+			}
+		}
+
+		private void process(final int i, final byte[] chunk, final int len, final long off) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, len);
+			if (!readFully(job.src, buffer, job.srcOff + off)) {
+				throw new EOFException();
+			}
+
+			// c_i <- KMACXOF256(ke, right_encode(i), |m_i|, “SKE”) XOR m_i
+			// t_i <- KMACXOF256(ka, m_i || right_encode(i), 512, “SKA”)
+			byte[] index = HASH.right_encode(i);
+			KmacXofStream keystream = StreamPool.kmac(SecurityProfile.BITS_256, job.ke, "SKE".getBytes());
+			KmacXofStream tag = StreamPool.kmac(SecurityProfile.BITS_256, job.ka, "SKA".getBytes());
+			try {
+				keystream.update(index);
+				FusedCipher cipher = new FusedCipher(keystream, tag);
+				if (job.encrypt) {
+					cipher.encrypt(chunk, 0, chunk, 0, len);
+				} else {
+					cipher.decrypt(chunk, 0, chunk, 0, len);
+				}
+				tag.update(index).squeeze(job.tags, i * TAG_LENGTH, TAG_LENGTH);
+			} finally {
+				StreamPool.release(tag);
+				StreamPool.release(keystream);
+			}
+			writeFully(job.dst, buffer.flip(), job.dstOff + off);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Session encryption of many small records under one pass-phrase.
+ *
+ * The pass-phrase is run through the key derivation once per session, and
+ * each record is then encrypted and authenticated with a keyed Keccak
+ * duplex, which takes one permutation for the record counter and then one
+ * per rate block (136 bytes) of the record, with the tag squeezed from the
+ * same state:
+ *
+ * K <- KMACXOF256(z || pw, “”, 512, “SD”)
+ * state <- Keccak[512] absorbing K || right_encode(i), padded
+ * c_i, state <- duplex of m_i over the state, padded
+ * t_i <- 256 bits squeezed from the state
+ *
+ * A record is i (8, big-endian) || c_i || t_i, so records can be opened in
+ * any order. A session is started with a fresh z by the sender, which is
+ * the only side that may seal, and resumed from z by receivers, which may
+ * only open, so that no two records are ever sealed under the same key and
+ * counter. A session is not thread-safe.
+ *
+ * @author Minh Nguyen
+ */
+public final class SymmetricSession {
+
+	/**
+	 * Length of the session nonce z in bytes.
+	 */
+	public static final int Z_LENGTH = 64;
+
+	/**
+	 * Length of the record tag in bytes.
+	 */
+	public static final int TAG_LENGTH = 32;
+
+	/**
+	 * Number of bytes a record adds to its message: the counter and the tag.
+	 */
+	public static final int OVERHEAD = 8 + TAG_LENGTH;
+
+	/**
+	 * Padding suffixes closing the counter block and the message.
+	 */
+	private static final int COUNTER_SUFFIX = 0x01;
+	private static final int MESSAGE_SUFFIX = 0x03;
+
+	private static final VarHandle COUNTER =
+			MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+	private final byte[] z;
+	private final boolean sealing;
+
+	/**
+	 * The sponge after absorbing K, which every record starts from.
+	 */
+	private final KeccakSponge keyed;
+	private final KeccakSponge sponge;
+	private final byte[] expected = new byte[TAG_LENGTH];
+	private long counter;
+
+	private SymmetricSession(final byte[] theZ, final byte[] pw, final boolean theSealing) {
+		z = theZ;
+		sealing = theSealing;
+
+		// K <- KMACXOF256(z || pw, “”, 512, “SD”)
+		byte[] K = HASH.KMACXOF256(HASH.combineArrays(z, pw), "".getBytes(), 512, "SD".getBytes());
+		keyed = new KeccakSponge();
+		keyed.absorb(K, 0, K.length);
+		Arrays.fill(K, (byte)0);
+		sponge = new KeccakSponge(keyed);
+	}
+
+	/**
+	 * Start a new session under a pass-phrase, with a fresh z. The session
+	 * can seal and open records.
+	 */
+	public static SymmetricSession start(final byte[] pw) {
+		byte[] z = new byte[Z_LENGTH];
+		KeccakDrbg.nextBytes(z);			// z <- Random(512)
+		return new SymmetricSession(z, pw, true);
+	}
+
+	/**
+	 * Resume the session with the given z under a pass-phrase, to open the
+	 * records it sealed.
+	 */
+	public static SymmetricSession resume(final byte[] z, final byte[] pw) {
+		if (z.length != Z_LENGTH) {
+			throw new IllegalArgumentException("z must be " + Z_LENGTH + " bytes long");
+		}
+		return new SymmetricSession(z.clone(), pw, false);
+	}
+
+	/**
+	 * @return the session nonce z, to be sent to the receivers.
+	 */
+	public byte[] getZ() {
+		return z.clone();
+	}
+
+	/**
+	 * Encrypt and authenticate a message under the next counter.
+	 *
+	 * @return the record i || c || t
+	 * @throws IllegalStateException if the session was resumed rather than started
+	 */
+	public byte[] seal(final byte[] m) {
+		if (!sealing) {
+			throw new IllegalStateException("A resumed session can only open records");
+		}
+		if (counter < 0) {
+			throw new IllegalStateException("Record counter exhausted");
+		}
+		long i = counter++;
+		byte[] record = new byte[m.length + OVERHEAD];
+		COUNTER.set(record, 0, i);
+
+		begin(i);
+		sponge.duplexEncrypt(m, 0, record, 8, m.length);
+		sponge.pad(MESSAGE_SUFFIX);
+		sponge.squeeze(record, 8 + m.length, TAG_LENGTH);
+		return record;
+	}
+
+	/**
+	 * Verify and decrypt a record.
+	 *
+	 * @return the message, or null if the record does not authenticate
+	 */
+	public byte[] open(final byte[] record) {
+		if (record.length < OVERHEAD) {
+			return null;
+		}
+		long i = (long)COUNTER.get(record, 0);
+		if (i < 0) {
+			return null;			// never sealed: counters stop at 2^63 - 1
+		}
+		int len = record.length - OVERHEAD;
+		byte[] m = new byte[len];
+
+		begin(i);
+		sponge.duplexDecrypt(record, 8, m, 0, len);
+		sponge.pad(MESSAGE_SUFFIX);
+		sponge.squeeze(expected, 0, TAG_LENGTH);
+
+		// accept if, and only if, t’ = t
+		if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(record, 8 + len, record.length))) {
+			Arrays.fill(m, (byte)0);
+			return null;
+		}
+		return m;
+	}
+
+	/**
+	 * Seal a batch of messages under consecutive counters.
+	 *
+	 * @return the records, in the order of the messages
+	 */
+	public byte[][] sealAll(final byte[]... messages) {
+		byte[][] records = new byte[messages.length][];
+		for (int k = 0; k < messages.length; k++) {
+			records[k] = seal(messages[k]);
+		}
+		return records;
+	}
+
+	/**
+	 * Open a batch of records.
+	 *
+	 * @return the messages, in the order of the records, with null for every
+	 * 		   record that does not authenticate
+	 */
+	public byte[][] openAll(final byte[]... records) {
+		byte[][] messages = new byte[records.length][];
+		for (int k = 0; k < records.length; k++) {
+			messages[k] = open(records[k]);
+		}
+		return messages;
+	}
+
+	/**
+	 * Start record i: state <- Keccak[512] absorbing K || right_encode(i), padded.
+	 */
+	private void begin(final long i) {
+		sponge.copyFrom(keyed);
+		byte[] n = HASH.right_encode(i);
+		sponge.absorb(n, 0, n.length);
+		sponge.pad(COUNTER_SUFFIX);
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * TurboSHAKE256 based off of RFC 9861: https://www.rfc-editor.org/rfc/rfc9861
+ * 
+ * TurboSHAKE256 is SHAKE256 with the permutation cut down to the 12-round
+ * Keccak-p[1600, 12] and a domain separation byte D in 0x01..0x7F instead of
+ * the fixed SHAKE suffix. It is the building block of KangarooTwelve.
+ * 
+ * @author Minh Nguyen
+ */
+public final class TurboShake256 {
+	
+	/**
+	 * The number of rounds of Keccak-p[1600, 12].
+	 */
+	public static final int ROUNDS = 12;
+	
+	/**
+	 * Domain separation byte of plain TurboSHAKE256.
+	 */
+	public static final int DEFAULT_DOMAIN = 0x1F;
+	
+	/**
+	 * Prevent instantiation of this object.
+	 */
+	private TurboShake256() {
+		// DO NOTHING
+	}
+	
+	/**
+	 * TurboSHAKE256(M, D, L).
+	 * 
+	 * @param M the input bit string of any length, including zero.
+	 * @param D the domain separation byte, from 0x01 to 0x7F.
+	 * @param L an integer representing the requested output length in bits.
+	 */
+	public static byte[] hash(final byte[] M, final int D, final int L) {
+		KeccakSponge sponge = newSponge();
+		sponge.absorb(M, 0, M.length);
+		byte[] out = new byte[L >>> 3];
+		finish(sponge, D, out, 0, out.length);
+		return out;
+	}
+	
+	/**
+	 * @return an empty sponge running TurboSHAKE256's permutation.
+	 */
+	static KeccakSponge newSponge() {
+		return new KeccakSponge(ROUNDS);
+	}
+	
+	/**
+	 * Pad the input absorbed so far with the domain byte D and squeeze len
+	 * bytes of output into out starting at off.
+	 */
+	static void finish(final KeccakSponge sponge, final int D, final byte[] out, final int off, final int len) {
+		if (D < 0x01 || D > 0x7F) {
+			throw new IllegalArgumentException("Domain separation byte must be between 0x01 and 0x7F.");
+		}
+		sponge.pad(D);
+		sponge.squeeze(out, off, len);
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Cryptography Practical Project
+ */
+
+/**
+ * A Keccak-f[1600] engine with the round body fully unrolled.
+ * 
+ * The 25 lanes are loaded into local variables once, the rounds run with
+ * constant lane indices and rotation amounts only (no modulo indexing, no
+ * PILN/rotation table lookups), and the lanes are stored back at the end.
+ * This lets the JIT keep the whole state in registers across the rounds.
+ * 
+ * The engine keeps no state of its own.
+ * 
+ * @author Minh Nguyen
+ */
+public class UnrolledKeccakEngine implements KeccakEngine {
+	
+	private static final long[] RC = ReferenceKeccakEngine.ROUND_CONSTANTS;
+
+	@Override
+	public void permute(long[] a, int rounds) {
+		long a00 = a[0],  a01 = a[1],  a02 = a[2],  a03 = a[3],  a04 = a[4];
+		long a05 = a[5],  a06 = a[6],  a07 = a[7],  a08 = a[8],  a09 = a[9];
+		long a10 = a[10], a11 = a[11], a12 = a[12], a13 = a[13], a14 = a[14];
+		long a15 = a[15], a16 = a[16], a17 = a[17], a18 = a[18], a19 = a[19];
+		long a20 = a[20], a21 = a[21], a22 = a[22], a23 = a[23], a24 = a[24];
+		
+		for (int round = ReferenceKeccakEngine.ROUNDS - rounds; round < ReferenceKeccakEngine.ROUNDS; round++) {
+			
+			// Theta
+			long c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+			long c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+			long c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+			long c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+			long c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+			
+			long d0 = Long.rotateLeft(c1, 1) ^ c4;
+			long d1 = Long.rotateLeft(c2, 1) ^ c0;
+			long d2 = Long.rotateLeft(c3, 1) ^ c1;
+			long d3 = Long.rotateLeft(c4, 1) ^ c2;
+			long d4 = Long.rotateLeft(c0, 1) ^ c3;
+			
+			a00 ^= d0; a05 ^= d0; a10 ^= d0; a15 ^= d0; a20 ^= d0;
+			a01 ^= d1; a06 ^= d1; a11 ^= d1; a16 ^= d1; a21 ^= d1;
+			a02 ^= d2; a07 ^= d2; a12 ^= d2; a17 ^= d2; a22 ^= d2;
+			a03 ^= d3; a08 ^= d3; a13 ^= d3; a18 ^= d3; a23 ^= d3;
+			a04 ^= d4; a09 ^= d4; a14 ^= d4; a19 ^= d4; a24 ^= d4;
+			
+			// Rho Pi
+			c1  = Long.rotateLeft(a01, 1);
+			a01 = Long.rotateLeft(a06, 44);
+			a06 = Long.rotateLeft(a09, 20);
+			a09 = Long.rotateLeft(a22, 61);
+			a22 = Long.rotateLeft(a14, 39);
+			a14 = Long.rotateLeft(a20, 18);
+			a20 = Long.rotateLeft(a02, 62);
+			a02 = Long.rotateLeft(a12, 43);
+			a12 = Long.rotateLeft(a13, 25);
+			a13 = Long.rotateLeft(a19, 8);
+			a19 = Long.rotateLeft(a23, 56);
+			a23 = Long.rotateLeft(a15, 41);
+			a15 = Long.rotateLeft(a04, 27);
+			a04 = Long.rotateLeft(a24, 14);
+			a24 = Long.rotateLeft(a21, 2);
+			a21 = Long.rotateLeft(a08, 55);
+			a08 = Long.rotateLeft(a16, 45);
+			a16 = Long.rotateLeft(a05, 36);
+			a05 = Long.rotateLeft(a03, 28);
+			a03 = Long.rotateLeft(a18, 21);
+			a18 = Long.rotateLeft(a17, 15);
+			a17 = Long.rotateLeft(a11, 10);
+			a11 = Long.rotateLeft(a07, 6);
+			a07 = Long.rotateLeft(a10, 3);
+			a10 = c1;
+			
+			// Chi
+			c0 = a00 ^ (~a01 & a02);
+			c1 = a01 ^ (~a02 & a03);
+			a02 ^= ~a03 & a04;
+			a03 ^= ~a04 & a00;
+			a04 ^= ~a00 & a01;
+			a00 = c0;
+			a01 = c1;
+			
+			c0 = a05 ^ (~a06 & a07);
+			c1 = a06 ^ (~a07 & a08);
+			a07 ^= ~a08 & a09;
+			a08 ^= ~a09 & a05;
+			a09 ^= ~a05 & a06;
+			a05 = c0;
+			a06 = c1;
+			
+			c0 = a10 ^ (~a11 & a12);
+			c1 = a11 ^ (~a12 & a13);
+			a12 ^= ~a13 & a14;
+			a13 ^= ~a14 & a10;
+			a14 ^= ~a10 & a11;
+			a10 = c0;
+			a11 = c1;
+			
+			c0 = a15 ^ (~a16 & a17);
+			c1 = a16 ^ (~a17 & a18);
+			a17 ^= ~a18 & a19;
+			a18 ^= ~a19 & a15;
+			a19 ^= ~a15 & a16;
+			a15 = c0;
+			a16 = c1;
+			
+			c0 = a20 ^ (~a21 & a22);
+			c1 = a21 ^ (~a22 & a23);
+			a22 ^= ~a23 & a24;
+			a23 ^= ~a24 & a20;
+			a24 ^= ~a20 & a21;
+			a20 = c0;
+			a21 = c1;
+			
+			// Iota
+			a00 ^= RC[round];
+		}
+		
+		a[0]  = a00; a[1]  = a01; a[2]  = a02; a[3]  = a03; a[4]  = a04;
+		a[5]  = a05; a[6]  = a06; a[7]  = a07; a[8]  = a08; a[9]  = a09;
+		a[10] = a10; a[11] = a11; a[12] = a12; a[13] = a13; a[14] = a14;
+		a[15] = a15; a[16] = a16; a[17] = a17; a[18] = a18; a[19] = a19;
+		a[20] = a20; a[21] = a21; a[22] = a22; a[23] = a23; a[24] = a24;
+	}
+	
+	@Override
+	public String name() {
+		return "unrolled";
+	}
+}
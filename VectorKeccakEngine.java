@@ -0,0 +1,209 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static jdk.incubator.vector.VectorOperators.AND_NOT;
+import static jdk.incubator.vector.VectorOperators.ROL;
+import static jdk.incubator.vector.VectorOperators.XOR;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Multi-buffer Keccak-f[1600] engine on the Vector API.
+ * 
+ * Lane i of every LongVector holds the same Keccak lane of state i, so one
+ * vector instruction advances 4 (256-bit vectors) or 8 (512-bit vectors)
+ * independent states. The round body is the one of {@link UnrolledKeccakEngine}
+ * with every long operation replaced by its vector counterpart.
+ * 
+ * Compiling and running this class needs {@code --add-modules jdk.incubator.vector};
+ * it is only ever loaded by {@link MultiKeccakEngine#newInstance()} after
+ * checking the module is present.
+ * 
+ * @author Minh Nguyen
+ */
+final class VectorKeccakEngine implements MultiKeccakEngine {
+	
+	private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+	
+	private static final long[] RC = ReferenceKeccakEngine.ROUND_CONSTANTS;
+	
+	/**
+	 * The states being permuted, interleaved: lane i of state k at i * w + k.
+	 */
+	private final long[] buf = new long[25 * SPECIES.length()];
+	
+	@Override
+	public int lanes() {
+		return SPECIES.length();
+	}
+	
+	@Override
+	public void permute(final long[][] states, final int from, final int count) {
+		int w = SPECIES.length();
+		for (int off = 0; off < count; off += w) {
+			int n = Math.min(w, count - off);
+			for (int k = 0; k < n; k++) {
+				long[] st = states[from + off + k];
+				for (int i = 0; i < 25; i++) {
+					buf[i * w + k] = st[i];
+				}
+			}
+			permuteInterleaved(w);
+			for (int k = 0; k < n; k++) {
+				long[] st = states[from + off + k];
+				for (int i = 0; i < 25; i++) {
+					st[i] = buf[i * w + k];
+				}
+			}
+		}
+	}
+	
+	private void permuteInterleaved(final int w) {
+		LongVector a00 = LongVector.fromArray(SPECIES, buf, 0);
+		LongVector a01 = LongVector.fromArray(SPECIES, buf, 1 * w);
+		LongVector a02 = LongVector.fromArray(SPECIES, buf, 2 * w);
+		LongVector a03 = LongVector.fromArray(SPECIES, buf, 3 * w);
+		LongVector a04 = LongVector.fromArray(SPECIES, buf, 4 * w);
+		LongVector a05 = LongVector.fromArray(SPECIES, buf, 5 * w);
+		LongVector a06 = LongVector.fromArray(SPECIES, buf, 6 * w);
+		LongVector a07 = LongVector.fromArray(SPECIES, buf, 7 * w);
+		LongVector a08 = LongVector.fromArray(SPECIES, buf, 8 * w);
+		LongVector a09 = LongVector.fromArray(SPECIES, buf, 9 * w);
+		LongVector a10 = LongVector.fromArray(SPECIES, buf, 10 * w);
+		LongVector a11 = LongVector.fromArray(SPECIES, buf, 11 * w);
+		LongVector a12 = LongVector.fromArray(SPECIES, buf, 12 * w);
+		LongVector a13 = LongVector.fromArray(SPECIES, buf, 13 * w);
+		LongVector a14 = LongVector.fromArray(SPECIES, buf, 14 * w);
+		LongVector a15 = LongVector.fromArray(SPECIES, buf, 15 * w);
+		LongVector a16 = LongVector.fromArray(SPECIES, buf, 16 * w);
+		LongVector a17 = LongVector.fromArray(SPECIES, buf, 17 * w);
+		LongVector a18 = LongVector.fromArray(SPECIES, buf, 18 * w);
+		LongVector a19 = LongVector.fromArray(SPECIES, buf, 19 * w);
+		LongVector a20 = LongVector.fromArray(SPECIES, buf, 20 * w);
+		LongVector a21 = LongVector.fromArray(SPECIES, buf, 21 * w);
+		LongVector a22 = LongVector.fromArray(SPECIES, buf, 22 * w);
+		LongVector a23 = LongVector.fromArray(SPECIES, buf, 23 * w);
+		LongVector a24 = LongVector.fromArray(SPECIES, buf, 24 * w);
+		
+		for (int round = 0; round < ReferenceKeccakEngine.ROUNDS; round++) {
+			
+			// Theta
+			LongVector c0 = a00.lanewise(XOR, a05).lanewise(XOR, a10).lanewise(XOR, a15).lanewise(XOR, a20);
+			LongVector c1 = a01.lanewise(XOR, a06).lanewise(XOR, a11).lanewise(XOR, a16).lanewise(XOR, a21);
+			LongVector c2 = a02.lanewise(XOR, a07).lanewise(XOR, a12).lanewise(XOR, a17).lanewise(XOR, a22);
+			LongVector c3 = a03.lanewise(XOR, a08).lanewise(XOR, a13).lanewise(XOR, a18).lanewise(XOR, a23);
+			LongVector c4 = a04.lanewise(XOR, a09).lanewise(XOR, a14).lanewise(XOR, a19).lanewise(XOR, a24);
+			
+			LongVector d0 = c1.lanewise(ROL, 1).lanewise(XOR, c4);
+			LongVector d1 = c2.lanewise(ROL, 1).lanewise(XOR, c0);
+			LongVector d2 = c3.lanewise(ROL, 1).lanewise(XOR, c1);
+			LongVector d3 = c4.lanewise(ROL, 1).lanewise(XOR, c2);
+			LongVector d4 = c0.lanewise(ROL, 1).lanewise(XOR, c3);
+			
+			a00 = a00.lanewise(XOR, d0); a05 = a05.lanewise(XOR, d0); a10 = a10.lanewise(XOR, d0); a15 = a15.lanewise(XOR, d0); a20 = a20.lanewise(XOR, d0);
+			a01 = a01.lanewise(XOR, d1); a06 = a06.lanewise(XOR, d1); a11 = a11.lanewise(XOR, d1); a16 = a16.lanewise(XOR, d1); a21 = a21.lanewise(XOR, d1);
+			a02 = a02.lanewise(XOR, d2); a07 = a07.lanewise(XOR, d2); a12 = a12.lanewise(XOR, d2); a17 = a17.lanewise(XOR, d2); a22 = a22.lanewise(XOR, d2);
+			a03 = a03.lanewise(XOR, d3); a08 = a08.lanewise(XOR, d3); a13 = a13.lanewise(XOR, d3); a18 = a18.lanewise(XOR, d3); a23 = a23.lanewise(XOR, d3);
+			a04 = a04.lanewise(XOR, d4); a09 = a09.lanewise(XOR, d4); a14 = a14.lanewise(XOR, d4); a19 = a19.lanewise(XOR, d4); a24 = a24.lanewise(XOR, d4);
+			
+			// Rho Pi
+			c1 = a01.lanewise(ROL, 1);
+			a01 = a06.lanewise(ROL, 44);
+			a06 = a09.lanewise(ROL, 20);
+			a09 = a22.lanewise(ROL, 61);
+			a22 = a14.lanewise(ROL, 39);
+			a14 = a20.lanewise(ROL, 18);
+			a20 = a02.lanewise(ROL, 62);
+			a02 = a12.lanewise(ROL, 43);
+			a12 = a13.lanewise(ROL, 25);
+			a13 = a19.lanewise(ROL, 8);
+			a19 = a23.lanewise(ROL, 56);
+			a23 = a15.lanewise(ROL, 41);
+			a15 = a04.lanewise(ROL, 27);
+			a04 = a24.lanewise(ROL, 14);
+			a24 = a21.lanewise(ROL, 2);
+			a21 = a08.lanewise(ROL, 55);
+			a08 = a16.lanewise(ROL, 45);
+			a16 = a05.lanewise(ROL, 36);
+			a05 = a03.lanewise(ROL, 28);
+			a03 = a18.lanewise(ROL, 21);
+			a18 = a17.lanewise(ROL, 15);
+			a17 = a11.lanewise(ROL, 10);
+			a11 = a07.lanewise(ROL, 6);
+			a07 = a10.lanewise(ROL, 3);
+			a10 = c1;
+			
+			// Chi
+			c0 = a00.lanewise(XOR, a02.lanewise(AND_NOT, a01));
+			c1 = a01.lanewise(XOR, a03.lanewise(AND_NOT, a02));
+			a02 = a02.lanewise(XOR, a04.lanewise(AND_NOT, a03));
+			a03 = a03.lanewise(XOR, a00.lanewise(AND_NOT, a04));
+			a04 = a04.lanewise(XOR, a01.lanewise(AND_NOT, a00));
+			a00 = c0;
+			a01 = c1;
+			
+			c0 = a05.lanewise(XOR, a07.lanewise(AND_NOT, a06));
+			c1 = a06.lanewise(XOR, a08.lanewise(AND_NOT, a07));
+			a07 = a07.lanewise(XOR, a09.lanewise(AND_NOT, a08));
+			a08 = a08.lanewise(XOR, a05.lanewise(AND_NOT, a09));
+			a09 = a09.lanewise(XOR, a06.lanewise(AND_NOT, a05));
+			a05 = c0;
+			a06 = c1;
+			
+			c0 = a10.lanewise(XOR, a12.lanewise(AND_NOT, a11));
+			c1 = a11.lanewise(XOR, a13.lanewise(AND_NOT, a12));
+			a12 = a12.lanewise(XOR, a14.lanewise(AND_NOT, a13));
+			a13 = a13.lanewise(XOR, a10.lanewise(AND_NOT, a14));
+			a14 = a14.lanewise(XOR, a11.lanewise(AND_NOT, a10));
+			a10 = c0;
+			a11 = c1;
+			
+			c0 = a15.lanewise(XOR, a17.lanewise(AND_NOT, a16));
+			c1 = a16.lanewise(XOR, a18.lanewise(AND_NOT, a17));
+			a17 = a17.lanewise(XOR, a19.lanewise(AND_NOT, a18));
+			a18 = a18.lanewise(XOR, a15.lanewise(AND_NOT, a19));
+			a19 = a19.lanewise(XOR, a16.lanewise(AND_NOT, a15));
+			a15 = c0;
+			a16 = c1;
+			
+			c0 = a20.lanewise(XOR, a22.lanewise(AND_NOT, a21));
+			c1 = a21.lanewise(XOR, a23.lanewise(AND_NOT, a22));
+			a22 = a22.lanewise(XOR, a24.lanewise(AND_NOT, a23));
+			a23 = a23.lanewise(XOR, a20.lanewise(AND_NOT, a24));
+			a24 = a24.lanewise(XOR, a21.lanewise(AND_NOT, a20));
+			a20 = c0;
+			a21 = c1;
+			
+			// Iota
+			a00 = a00.lanewise(XOR, RC[round]);
+		}
+		
+		a00.intoArray(buf, 0);
+		a01.intoArray(buf, 1 * w);
+		a02.intoArray(buf, 2 * w);
+		a03.intoArray(buf, 3 * w);
+		a04.intoArray(buf, 4 * w);
+		a05.intoArray(buf, 5 * w);
+		a06.intoArray(buf, 6 * w);
+		a07.intoArray(buf, 7 * w);
+		a08.intoArray(buf, 8 * w);
+		a09.intoArray(buf, 9 * w);
+		a10.intoArray(buf, 10 * w);
+		a11.intoArray(buf, 11 * w);
+		a12.intoArray(buf, 12 * w);
+		a13.intoArray(buf, 13 * w);
+		a14.intoArray(buf, 14 * w);
+		a15.intoArray(buf, 15 * w);
+		a16.intoArray(buf, 16 * w);
+		a17.intoArray(buf, 17 * w);
+		a18.intoArray(buf, 18 * w);
+		a19.intoArray(buf, 19 * w);
+		a20.intoArray(buf, 20 * w);
+		a21.intoArray(buf, 21 * w);
+		a22.intoArray(buf, 22 * w);
+		a23.intoArray(buf, 23 * w);
+		a24.intoArray(buf, 24 * w);
+	}
+}
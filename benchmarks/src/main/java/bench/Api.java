@@ -0,0 +1,104 @@
+/*
+ * Cryptography Practical Project
+ */
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+
+/**
+ * Method handles onto the program's public API.
+ * 
+ * The program lives in the default package, which cannot be imported from
+ * a named package, and JMH refuses benchmarks in the default package. The
+ * handles are resolved once and held in static finals, so the JIT inlines
+ * them like direct calls. Program types are erased to Object.
+ * 
+ * @author Minh Nguyen
+ */
+final class Api {
+	
+	/** KMACXOF256(byte[] K, byte[] X, int L, byte[] S) : byte[] */
+	static final MethodHandle KMACXOF256;
+	
+	/** cSHAKE256(byte[] X, int L, String N, byte[] S) : byte[] */
+	static final MethodHandle CSHAKE256;
+	
+	/** encryptSymmetrically(byte[] m, byte[] pw) : SymmetricCrytogram */
+	static final MethodHandle ENCRYPT_SYMMETRICALLY;
+	
+	/** decryptSymmetrically(SymmetricCrytogram sc, byte[] pw) : byte[] */
+	static final MethodHandle DECRYPT_SYMMETRICALLY;
+	
+	/** new KeccakSponge() */
+	static final MethodHandle NEW_SPONGE;
+	
+	/** KeccakSponge.permute() */
+	static final MethodHandle PERMUTE;
+	
+	/** new EllipticCurvePoint(BigInteger x, boolean lsb) */
+	static final MethodHandle NEW_POINT;
+	
+	/** EllipticCurvePoint.sumOfPoints(EllipticCurvePoint p2) : EllipticCurvePoint */
+	static final MethodHandle SUM_OF_POINTS;
+	
+	/** multiplyPoint(BigInteger s, EllipticCurvePoint G) : EllipticCurvePoint */
+	static final MethodHandle MULTIPLY_POINT;
+	
+	/** generateKeyPair(byte[] pw) : EllipticCurvePoint */
+	static final MethodHandle GENERATE_KEY_PAIR;
+	
+	/** encryptWithPublicKey(byte[] m, EllipticCurvePoint V) : EllipticCurveCryptogram */
+	static final MethodHandle ENCRYPT_WITH_PUBLIC_KEY;
+	
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			Class<?> hash = Class.forName("HASH");
+			Class<?> sponge = Class.forName("KeccakSponge");
+			Class<?> point = Class.forName("EllipticCurvePoint");
+			Class<?> curve = Class.forName("EllipticCurve");
+			Class<?> symmetric = Class.forName("SymmetricCrytogram");
+			Class<?> elliptic = Class.forName("EllipticCurveCryptogram");
+			
+			KMACXOF256 = lookup.findStatic(hash, "KMACXOF256",
+					MethodType.methodType(byte[].class, byte[].class, byte[].class, int.class, byte[].class));
+			CSHAKE256 = lookup.findStatic(hash, "cSHAKE256",
+					MethodType.methodType(byte[].class, byte[].class, int.class, String.class, byte[].class));
+			ENCRYPT_SYMMETRICALLY = lookup.findStatic(hash, "encryptSymmetrically",
+					MethodType.methodType(symmetric, byte[].class, byte[].class))
+					.asType(MethodType.methodType(Object.class, byte[].class, byte[].class));
+			DECRYPT_SYMMETRICALLY = lookup.findStatic(hash, "decryptSymmetrically",
+					MethodType.methodType(byte[].class, symmetric, byte[].class))
+					.asType(MethodType.methodType(byte[].class, Object.class, byte[].class));
+			
+			NEW_SPONGE = lookup.findConstructor(sponge, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+			PERMUTE = lookup.findVirtual(sponge, "permute", MethodType.methodType(void.class))
+					.asType(MethodType.methodType(void.class, Object.class));
+			
+			NEW_POINT = lookup.findConstructor(point,
+					MethodType.methodType(void.class, BigInteger.class, boolean.class))
+					.asType(MethodType.methodType(Object.class, BigInteger.class, boolean.class));
+			SUM_OF_POINTS = lookup.findVirtual(point, "sumOfPoints", MethodType.methodType(point, point))
+					.asType(MethodType.methodType(Object.class, Object.class, Object.class));
+			MULTIPLY_POINT = lookup.findStatic(point, "multiplyPoint",
+					MethodType.methodType(point, BigInteger.class, point))
+					.asType(MethodType.methodType(Object.class, BigInteger.class, Object.class));
+			GENERATE_KEY_PAIR = lookup.findStatic(curve, "generateKeyPair",
+					MethodType.methodType(point, byte[].class))
+					.asType(MethodType.methodType(Object.class, byte[].class));
+			ENCRYPT_WITH_PUBLIC_KEY = lookup.findStatic(curve, "encryptWithPublicKey",
+					MethodType.methodType(elliptic, byte[].class, point))
+					.asType(MethodType.methodType(Object.class, byte[].class, Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private Api() {
+		// DO NOTHING
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Cryptography Practical Project
+ */
+package bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Point addition, scalar multiplication and public-key encryption of a
+ * short message.
+ * 
+ * @author Minh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EllipticCurveBenchmark {
+	
+	private final byte[] message = new byte[64];
+	private Object G;
+	private Object V;
+	private BigInteger s;
+	
+	@Setup
+	public void setup() throws Throwable {
+		// G = (4, even y)
+		G = (Object)Api.NEW_POINT.invokeExact(BigInteger.valueOf(4), false);
+		V = (Object)Api.GENERATE_KEY_PAIR.invokeExact("benchmark passphrase".getBytes());
+		s = new BigInteger(512, new Random(1));
+		new Random(2).nextBytes(message);
+	}
+	
+	@Benchmark
+	public Object sumOfPoints() throws Throwable {
+		return (Object)Api.SUM_OF_POINTS.invokeExact(V, V);
+	}
+	
+	@Benchmark
+	public Object multiplyPoint() throws Throwable {
+		return (Object)Api.MULTIPLY_POINT.invokeExact(s, G);
+	}
+	
+	@Benchmark
+	public Object encryptWithPublicKey() throws Throwable {
+		return (Object)Api.ENCRYPT_WITH_PUBLIC_KEY.invokeExact(message, V);
+	}
+}
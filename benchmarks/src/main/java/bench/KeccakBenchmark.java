@@ -0,0 +1,45 @@
+/*
+ * Cryptography Practical Project
+ */
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One Keccak-f[1600] permutation through the engine selected at start-up
+ * (see keccak.engine).
+ * 
+ * @author Minh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KeccakBenchmark {
+	
+	private Object sponge;
+	
+	@Setup
+	public void setup() throws Throwable {
+		sponge = (Object)Api.NEW_SPONGE.invokeExact();
+	}
+	
+	@Benchmark
+	public Object keccakf() throws Throwable {
+		Api.PERMUTE.invokeExact(sponge);
+		return sponge;
+	}
+}
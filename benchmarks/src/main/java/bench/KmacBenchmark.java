@@ -0,0 +1,56 @@
+/*
+ * Cryptography Practical Project
+ */
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * KMACXOF256 and cSHAKE256 over messages from 64 B to 1 GB.
+ * 
+ * @author Minh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx3g"})
+public class KmacBenchmark {
+	
+	@Param({"64", "1024", "65536", "1048576", "67108864", "1073741824"})
+	public int size;
+	
+	private final byte[] key = "benchmark key".getBytes();
+	private final byte[] customization = "D".getBytes();
+	private byte[] message;
+	
+	@Setup
+	public void setup() {
+		message = new byte[size];
+		new Random(size).nextBytes(message);
+	}
+	
+	@Benchmark
+	public byte[] kmacxof256() throws Throwable {
+		return (byte[])Api.KMACXOF256.invokeExact(key, message, 512, customization);
+	}
+	
+	@Benchmark
+	public byte[] cshake256() throws Throwable {
+		return (byte[])Api.CSHAKE256.invokeExact(message, 512, "", customization);
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Cryptography Practical Project
+ */
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Symmetric encryption and decryption under a passphrase, over messages
+ * from 64 B to 1 GB.
+ * 
+ * @author Minh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xmx5g"})
+public class SymmetricBenchmark {
+	
+	@Param({"64", "1024", "65536", "1048576", "67108864", "1073741824"})
+	public int size;
+	
+	private final byte[] pw = "benchmark passphrase".getBytes();
+	private byte[] message;
+	private Object cryptogram;
+	
+	@Setup
+	public void setup() throws Throwable {
+		message = new byte[size];
+		new Random(size).nextBytes(message);
+		cryptogram = (Object)Api.ENCRYPT_SYMMETRICALLY.invokeExact(message, pw);
+	}
+	
+	@Benchmark
+	public Object encryptSymmetrically() throws Throwable {
+		return (Object)Api.ENCRYPT_SYMMETRICALLY.invokeExact(message, pw);
+	}
+	
+	@Benchmark
+	public byte[] decryptSymmetrically() throws Throwable {
+		return (byte[])Api.DECRYPT_SYMMETRICALLY.invokeExact(cryptogram, pw);
+	}
+}
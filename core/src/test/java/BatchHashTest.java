@@ -0,0 +1,96 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The lockstep multi-buffer batch API against the scalar one-shot
+ * KMACXOF256, over batches of mixed lengths and more inputs than lanes.
+ *
+ * @author Minh Nguyen
+ */
+class BatchHashTest {
+
+	private static final int[] LENGTHS = {0, 1, 7, 135, 136, 137, 271, 272, 1000, 5000, 3, 64, 136 * 9};
+
+	private final Random random = new Random(1);
+
+	@Test
+	void hashAllMatchesTheScalarHash() {
+		List<byte[]> messages = messages();
+		List<byte[]> hashes = BatchHash.hashAll(messages);
+		assertEquals(messages.size(), hashes.size());
+		for (int i = 0; i < messages.size(); i++) {
+			assertArrayEquals(HASH.KMACXOF256("".getBytes(), messages.get(i), 512, "D".getBytes()),
+							  hashes.get(i), "message " + i);
+		}
+	}
+
+	@Test
+	void kmacAllUnderOneKeyMatchesTheScalarKmac() {
+		byte[] K = bytes(32);
+		List<byte[]> X = messages();
+		for (int L : new int[] {256, 512, 8 * 300}) {
+			List<byte[]> out = BatchHash.kmacAll(K, X, L, "S".getBytes());
+			for (int i = 0; i < X.size(); i++) {
+				assertArrayEquals(HASH.KMACXOF256(K, X.get(i), L, "S".getBytes()), out.get(i),
+								  "L = " + L + ", input " + i);
+			}
+		}
+	}
+
+	@Test
+	void kmacAllWithAKeyPerInputMatchesTheScalarKmac() {
+		List<byte[]> X = messages();
+		List<byte[]> K = new ArrayList<>();
+		for (int i = 0; i < X.size(); i++) {
+			K.add(bytes(i * 23));				// empty, short and multi-block keys
+		}
+		List<byte[]> out = BatchHash.kmacAll(K, X, 512, "My Tagged Application".getBytes());
+		for (int i = 0; i < X.size(); i++) {
+			assertArrayEquals(HASH.KMACXOF256(K.get(i), X.get(i), 512, "My Tagged Application".getBytes()),
+							  out.get(i), "input " + i);
+		}
+	}
+
+	@Test
+	void multiBufferEngineMatchesTheScalarEngine() {
+		MultiKeccakEngine engine = MultiKeccakEngine.newInstance();
+		MultiKeccakEngine scalar = new MultiKeccakEngine.Scalar();
+		long[][] a = new long[2 * engine.lanes() + 1][25];
+		long[][] b = new long[a.length][];
+		for (int i = 0; i < a.length; i++) {
+			for (int j = 0; j < 25; j++) {
+				a[i][j] = random.nextLong();
+			}
+			b[i] = a[i].clone();
+		}
+		engine.permute(a, 1, a.length - 1);
+		scalar.permute(b, 1, b.length - 1);
+		for (int i = 0; i < a.length; i++) {
+			assertArrayEquals(b[i], a[i], "state " + i);
+		}
+	}
+
+	private List<byte[]> messages() {
+		List<byte[]> messages = new ArrayList<>();
+		for (int length : LENGTHS) {
+			messages.add(bytes(length));
+		}
+		return messages;
+	}
+
+	private byte[] bytes(final int n) {
+		byte[] out = new byte[n];
+		random.nextBytes(out);
+		return out;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * cSHAKE, KMACXOF and SHAKE at both security levels against the NIST
+ * SP 800-185 samples and FIPS 202.
+ *
+ * @author Minh Nguyen
+ */
+class CShakeKmacTest {
+
+	private static final byte[] DATA_4 = hex("00010203");
+	private static final byte[] DATA_200 = range(0x00, 200);
+	private static final byte[] KEY = range(0x40, 32);
+	private static final byte[] EMAIL = "Email Signature".getBytes();
+	private static final byte[] TAGGED = "My Tagged Application".getBytes();
+
+	@Test
+	void matchesCShake128Samples() {
+		assertArrayEquals(hex("c1c36925b6409a04f1b504fcbca9d82b4017277cb5ed2b2065fc1d3814d5aaf5"),
+						  HASH.cSHAKE128(DATA_4, 256, "", EMAIL));
+		assertArrayEquals(hex("c5221d50e4f822d96a2e8881a961420f294b7b24fe3d2094baed2c6524cc166b"),
+						  HASH.cSHAKE128(DATA_200, 256, "", EMAIL));
+	}
+
+	@Test
+	void matchesCShake256Samples() {
+		assertArrayEquals(hex("d008828e2b80ac9d2218ffee1d070c48b8e4c87bff32c9699d5b6896eee0edd1"
+							  + "64020e2be0560858d9c00c037e34a96937c561a74c412bb4c746469527281c8c"),
+						  HASH.cSHAKE256(DATA_4, 512, "", EMAIL));
+		assertArrayEquals(hex("07dc27b11e51fbac75bc7b3c1d983e8b4b85fb1defaf218912ac864302730917"
+							  + "27f42b17ed1df63e8ec118f04b23633c1dfb1574c8fb55cb45da8e25afb092bb"),
+						  HASH.cSHAKE256(DATA_200, 512, "", EMAIL));
+	}
+
+	@Test
+	void matchesKmacXof128Samples() {
+		assertArrayEquals(hex("cd83740bbd92ccc8cf032b1481a0f4460e7ca9dd12b08a0c4031178bacd6ec35"),
+						  HASH.KMACXOF128(KEY, DATA_4, 256, "".getBytes()));
+		assertArrayEquals(hex("31a44527b4ed9f5c6101d11de6d26f0620aa5c341def41299657fe9df1a3b16c"),
+						  HASH.KMACXOF128(KEY, DATA_4, 256, TAGGED));
+		assertArrayEquals(hex("47026c7cd793084aa0283c253ef658490c0db61438b8326fe9bddf281b83ae0f"),
+						  HASH.KMACXOF128(KEY, DATA_200, 256, TAGGED));
+	}
+
+	@Test
+	void matchesKmacXof256Samples() {
+		assertArrayEquals(hex("1755133f1534752aad0748f2c706fb5c784512cab835cd15676b16c0c6647fa9"
+							  + "6faa7af634a0bf8ff6df39374fa00fad9a39e322a7c92065a64eb1fb0801eb2b"),
+						  HASH.KMACXOF256(KEY, DATA_4, 512, TAGGED));
+		assertArrayEquals(hex("ff7b171f1e8a2b24683eed37830ee797538ba8dc563f6da1e667391a75edc02c"
+							  + "a633079f81ce12a25f45615ec89972031d18337331d24ceb8f8ca8e6a19fd98b"),
+						  HASH.KMACXOF256(KEY, DATA_200, 512, "".getBytes()));
+		assertArrayEquals(hex("d5be731c954ed7732846bb59dbe3a8e30f83e77a4bff4459f2f1c2b4ecebb8ce"
+							  + "67ba01c62e8ab8578d2d499bd1bb276768781190020a306a97de281dcc30305d"),
+						  HASH.KMACXOF256(KEY, DATA_200, 512, TAGGED));
+	}
+
+	@Test
+	void matchesShake128() {
+		assertArrayEquals(hex("7f9c2ba4e88f827d616045507605853ed73b8093f6efbc88eb1a6eacfa66ef26"),
+						  HASH.SHAKE128(new byte[0], 256));
+		assertArrayEquals(hex("0c4234ca1e31801ae606f8b8d8e0665c66f42a21d601c2681858a92c79ad5d69"),
+						  HASH.SHAKE128(DATA_200, 256));
+	}
+
+	private static byte[] range(final int first, final int n) {
+		byte[] out = new byte[n];
+		for (int i = 0; i < n; i++) {
+			out[i] = (byte)(first + i);
+		}
+		return out;
+	}
+
+	private static byte[] hex(final String s) {
+		return HexFormat.of().parseHex(s);
+	}
+}
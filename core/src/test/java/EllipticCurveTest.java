@@ -0,0 +1,155 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scalar multiplication on E521 by the fixed-base table and by
+ * double-and-add, checked against a plain affine BigInteger reference, and
+ * the point encoding and public-key encryption built on them.
+ *
+ * @author Minh Nguyen
+ */
+class EllipticCurveTest {
+
+	private static final BigInteger P = EllipticCurvePoint.MERESNNE_PRIME;
+	private static final BigInteger D = EllipticCurvePoint.D;
+
+	/**
+	 * r = 2^519 − 337554763258501705789107630418782636071904961214051226618635150085779108655765,
+	 * the order of G.
+	 */
+	private static final BigInteger R = BigInteger.TWO.pow(519).subtract(new BigInteger(
+			"337554763258501705789107630418782636071904961214051226618635150085779108655765"));
+
+	private static final EllipticCurvePoint G = new EllipticCurvePoint(BigInteger.valueOf(4), false);
+	private static final FixedBaseTable TABLE = new FixedBaseTable(G);
+
+	private final Random random = new Random(1);
+
+	@Test
+	void generatorIsOnTheCurveWithAnEvenY() {
+		assertEquals(BigInteger.valueOf(4), G.getX());
+		assertFalse(G.getY().testBit(0));
+		assertOnCurve(G.getX(), G.getY());
+	}
+
+	@Test
+	void multiplicationsAgreeWithTheAffineReference() {
+		BigInteger[] scalars = {
+			BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO, BigInteger.valueOf(15), BigInteger.valueOf(16),
+			BigInteger.ONE.negate(), BigInteger.valueOf(-12345),
+			new BigInteger(512, random), new BigInteger(521, random), new BigInteger(530, random),
+			new BigInteger(512, random).negate(), new BigInteger(512, random).multiply(BigInteger.valueOf(4)),
+		};
+		for (BigInteger s : scalars) {
+			BigInteger[] expected = reference(s, G.getX(), G.getY());
+			assertPoint(expected, EllipticCurvePoint.multiplyPoint(s, G), "multiplyPoint, s = " + s);
+			assertPoint(expected, TABLE.multiply(s), "FixedBaseTable, s = " + s);
+		}
+	}
+
+	@Test
+	void multiplyingAnyPointAgreesWithTheAffineReference() {
+		EllipticCurvePoint V = EllipticCurvePoint.multiplyPoint(new BigInteger(512, random), G);
+		BigInteger s = new BigInteger(512, random);
+		assertPoint(reference(s, V.getX(), V.getY()), EllipticCurvePoint.multiplyPoint(s, V), "s * V");
+		assertPoint(reference(s.negate(), V.getX(), V.getY()),
+					EllipticCurvePoint.multiplyPoint(s.negate(), V), "-s * V");
+	}
+
+	@Test
+	void orderTimesGeneratorIsTheNeutralPoint() {
+		BigInteger[] neutral = {BigInteger.ZERO, BigInteger.ONE};
+		assertPoint(neutral, EllipticCurvePoint.multiplyPoint(R, G), "r * G");
+		assertPoint(neutral, TABLE.multiply(R), "r * G by the table");
+		BigInteger s = new BigInteger(512, random);
+		assertPoint(pointOf(TABLE.multiply(s)), TABLE.multiply(s.add(R)), "(s + r) * G");
+	}
+
+	@Test
+	void compressedPointsRoundTrip() {
+		for (int k = 0; k < 20; k++) {
+			EllipticCurvePoint V = TABLE.multiply(new BigInteger(521, random));
+			byte[] encoded = V.toCompressed();
+			assertEquals(EllipticCurvePoint.ENCODED_LENGTH, encoded.length);
+			assertPoint(pointOf(V), EllipticCurvePoint.fromCompressed(encoded), "point " + k);
+		}
+		assertPoint(pointOf(G), EllipticCurvePoint.fromCompressed(G.toCompressed()), "G");
+	}
+
+	@Test
+	void decryptsWhatIsEncryptedUnderThePublicKey() {
+		byte[] pw = "elliptic pass-phrase".getBytes();
+		EllipticCurvePoint V = EllipticCurve.generateKeyPair(pw);
+		assertPoint(reference(privateScalar(pw), G.getX(), G.getY()), V, "V = s * G");
+		for (int length : new int[] {0, 1, 136, 1000}) {
+			byte[] m = new byte[length];
+			random.nextBytes(m);
+			EllipticCurveCryptogram cryptogram = EllipticCurve.encryptWithPublicKey(m, V);
+			assertArrayEquals(m, EllipticCurve.decryptWithPW(cryptogram, pw), "|m| = " + length);
+			assertNull(EllipticCurve.decryptWithPW(cryptogram, "wrong".getBytes()));
+		}
+	}
+
+	/**
+	 * s <- 4 * KMACXOF256(pw, “”, 512, “K”)
+	 */
+	private static BigInteger privateScalar(final byte[] pw) {
+		return new BigInteger(HASH.KMACXOF256(pw, "".getBytes(), 512, "K".getBytes())).shiftLeft(2);
+	}
+
+	/**
+	 * s * (x, y) by affine double-and-add, straight from the Edwards addition law.
+	 */
+	private static BigInteger[] reference(final BigInteger s, final BigInteger x, final BigInteger y) {
+		BigInteger[] base = s.signum() < 0 ? new BigInteger[] {x.negate().mod(P), y} : new BigInteger[] {x, y};
+		BigInteger k = s.abs();
+		BigInteger[] result = {BigInteger.ZERO, BigInteger.ONE};
+		for (int i = k.bitLength() - 1; i >= 0; i--) {
+			result = add(result, result);
+			if (k.testBit(i)) {
+				result = add(result, base);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * (x1, y1) + (x2, y2) = ((x1y2 + y1x2) / (1 + dx1x2y1y2), (y1y2 − x1x2) / (1 − dx1x2y1y2))
+	 */
+	private static BigInteger[] add(final BigInteger[] a, final BigInteger[] b) {
+		BigInteger dxxyy = D.multiply(a[0]).multiply(b[0]).multiply(a[1]).multiply(b[1]).mod(P);
+		BigInteger x = a[0].multiply(b[1]).add(a[1].multiply(b[0]))
+						   .multiply(BigInteger.ONE.add(dxxyy).modInverse(P)).mod(P);
+		BigInteger y = a[1].multiply(b[1]).subtract(a[0].multiply(b[0]))
+						   .multiply(BigInteger.ONE.subtract(dxxyy).modInverse(P)).mod(P);
+		return new BigInteger[] {x, y};
+	}
+
+	private static void assertOnCurve(final BigInteger x, final BigInteger y) {
+		// x^2 + y^2 = 1 + dx^2y^2
+		BigInteger x2 = x.multiply(x);
+		BigInteger y2 = y.multiply(y);
+		assertEquals(x2.add(y2).mod(P), BigInteger.ONE.add(D.multiply(x2).multiply(y2)).mod(P));
+	}
+
+	private static BigInteger[] pointOf(final EllipticCurvePoint point) {
+		return new BigInteger[] {point.getX(), point.getY()};
+	}
+
+	private static void assertPoint(final BigInteger[] expected, final EllipticCurvePoint actual, final String what) {
+		assertEquals(expected[0], actual.getX().mod(P), what + ": x");
+		assertEquals(expected[1], actual.getY().mod(P), what + ": y");
+		assertOnCurve(actual.getX(), actual.getY());
+	}
+}
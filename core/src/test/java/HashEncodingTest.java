@@ -0,0 +1,58 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * left_encode and right_encode of NIST SP 800-185, 2.3.1.
+ *
+ * @author Minh Nguyen
+ */
+class HashEncodingTest {
+
+	@Test
+	void encodesZeroAsOneByte() {
+		assertArrayEquals(bytes(0x01, 0x00), HASH.left_encode(0));
+		assertArrayEquals(bytes(0x00, 0x01), HASH.right_encode(0));
+	}
+
+	@Test
+	void encodesWithNoLeadingZeroBytes() {
+		assertArrayEquals(bytes(0x01, 0xFF), HASH.left_encode(255));
+		assertArrayEquals(bytes(0xFF, 0x01), HASH.right_encode(255));
+		assertArrayEquals(bytes(0x02, 0x01, 0x00), HASH.left_encode(256));
+		assertArrayEquals(bytes(0x01, 0x00, 0x02), HASH.right_encode(256));
+
+		// just below 2^56 and 2^63: seven and eight bytes, not one more
+		assertArrayEquals(bytes(0x07, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF),
+						  HASH.left_encode((1L << 56) - 1));
+		assertArrayEquals(bytes(0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x07),
+						  HASH.right_encode((1L << 56) - 1));
+		assertArrayEquals(bytes(0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x08),
+						  HASH.right_encode(1L << 56));
+		assertArrayEquals(bytes(0x08, 0x7F, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF),
+						  HASH.left_encode(Long.MAX_VALUE));
+		assertArrayEquals(bytes(0x7F, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x08),
+						  HASH.right_encode(Long.MAX_VALUE));
+	}
+
+	@Test
+	void rejectsNegativeValues() {
+		assertThrows(IllegalArgumentException.class, () -> HASH.left_encode(-1));
+		assertThrows(IllegalArgumentException.class, () -> HASH.right_encode(-1));
+		assertThrows(IllegalArgumentException.class, () -> HASH.right_encode(-251));
+		assertThrows(IllegalArgumentException.class, () -> HASH.right_encode(Long.MIN_VALUE));
+	}
+
+	private static byte[] bytes(final int... values) {
+		byte[] out = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			out[i] = (byte)values[i];
+		}
+		return out;
+	}
+}
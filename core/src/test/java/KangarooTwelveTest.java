@@ -0,0 +1,107 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * TurboSHAKE256 and KT256 against the test vectors of RFC 9861. ptn(n) is
+ * the repeating pattern 00 01 .. FA of n bytes.
+ *
+ * @author Minh Nguyen
+ */
+class KangarooTwelveTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void matchesTurboShake256Vectors() {
+		assertArrayEquals(hex("367a329dafea871c7802ec67f905ae13c57695dc2c6663c61035f59a18f8e7db"
+							  + "11edc0e12e91ea60eb6b32df06dd7f002fbafabb6e13ec1cc20d995547600db0"),
+						  TurboShake256.hash(new byte[0], 0x1F, 512));
+		assertArrayEquals(hex("b3bab0300e6a191fbe6137939835923578794ea54843f5011090fa2f3780a9e5"
+							  + "cb22c59d78b40a0fbff9e672c0fbe0970bd2c845091c6044d687054da5d8e9c7"),
+						  TurboShake256.hash(ptn(17), 0x1F, 512));
+		assertArrayEquals(hex("66b810db8e90780424c0847372fdc95710882fde31c6df75beb9d4cd9305cfca"
+							  + "e35e7b83e8b7e6eb4b78605880116316fe2c078a09b94ad7b8213c0a738b65c0"),
+						  TurboShake256.hash(ptn(17 * 17), 0x1F, 512));
+	}
+
+	@Test
+	void matchesTurboShake256DomainVectors() {
+		assertArrayEquals(hex("d21c6fbbf587fa2282f29aea620175fb0257413af78a0b1b2a87419ce031d933"
+							  + "ae7a4d383327a8a17641a34f8a1d1003ad7da6b72dba84bb62fef28f62f12424"),
+						  TurboShake256.hash(hex("ffffff"), 0x01, 512));
+		assertArrayEquals(hex("738d7b4e37d18b7f22ad1b5313e357e3dd7d07056a26a303c433fa3533455280"
+							  + "f4f5a7d4f700efb437fe6d281405e07be32a0a972e22e63adc1b090daefe004b"),
+						  TurboShake256.hash(hex("ff"), 0x06, 512));
+		assertArrayEquals(hex("18b3b5b7061c2e67c1753a00e6ad7ed7ba1c906cf93efb7092eaf27fbeebb755"
+							  + "ae6e292493c110e48d260028492b8e09b5500612b8f2578985ded5357d00ec67"),
+						  TurboShake256.hash(hex("ffffff"), 0x07, 512));
+	}
+
+	@Test
+	void matchesSingleNodeKt256Vectors() {
+		assertArrayEquals(hex("b23d2e9cea9f4904e02bec06817fc10ce38ce8e93ef4c89e6537076af8646404"
+							  + "e3e8b68107b8833a5d30490aa33482353fd4adc7148ecb782855003aaebde4a9"),
+						  KangarooTwelve.digest(new byte[0], new byte[0], 512));
+		assertArrayEquals(hex("1ba3c02b1fc514474f06c8979978a9056c8483f4a1b63d0dccefe3a28a2f323e"
+							  + "1cdcca40ebf006ac76ef0397152346837b1277d3e7faa9c9653b19075098527b"),
+						  KangarooTwelve.digest(ptn(17), new byte[0], 512));
+		assertArrayEquals(hex("47ef96dd616f200937aa7847e34ec2feae8087e3761dc0f8c1a154f51dc9ccf8"
+							  + "45d7adbce57ff64b639722c6a1672e3bf5372d87e00aff89be97240756998853"),
+						  KangarooTwelve.digest(hex("ff"), ptn(41), 512));
+		assertArrayEquals(hex("3081434d93a4108d8d8a3305b89682cebedc7ca4ea8a3ce869fbb73cbe4a58ee"
+							  + "f6f24de38ffc170514c70e7ab2d01f03812616e863d769afb3753193ba045b20"),
+						  KangarooTwelve.digest(ptn(8191), new byte[0], 512));
+	}
+
+	@Test
+	void matchesTreeModeKt256Vectors() {
+		byte[] ptn8192 = ptn(8192);
+		byte[] large = ptn(17 * 17 * 17 * 17);
+		for (boolean parallel : new boolean[] {false, true}) {
+			assertArrayEquals(hex("c6ee8e2ad3200c018ac87aaa031cdac22121b412d07dc6e0dccbb53423747e9a"
+								  + "1c18834d99df596cf0cf4b8dfafb7bf02d139d0c9035725adc1a01b7230a41fa"),
+							  KangarooTwelve.digest(ptn8192, new byte[0], 512, parallel));
+			assertArrayEquals(hex("74e47879f10a9c5d11bd2da7e194fe57e86378bf3c3f7448eff3c576a0f18c5c"
+								  + "aae0999979512090a7f348af4260d4de3c37f1ecaf8d2c2c96c1d16c64b12496"),
+							  KangarooTwelve.digest(ptn8192, ptn(8189), 512, parallel));
+			assertArrayEquals(hex("f4b5908b929ffe01e0f79ec2f21243d41a396b2e7303a6af1d6399cd6c7a0a2d"
+								  + "d7c4f607e8277f9c9b1cb4ab9ddc59d4b92d1fc7558441f1832c3279a4241b8b"),
+							  KangarooTwelve.digest(ptn8192, ptn(8190), 512, parallel));
+			assertArrayEquals(hex("b06275d284cd1cf205bcbe57dccd3ec1ff6686e3ed15776383e1f2fa3c6ac8f0"
+								  + "8bf8a162829db1a44b2a43ff83dd89c3cf1ceb61ede659766d5ccf817a62ba8d"),
+							  KangarooTwelve.digest(large, new byte[0], 512, parallel));
+		}
+	}
+
+	@Test
+	void digestsAFileLikeTheSameBytes() throws IOException {
+		byte[] large = ptn(17 * 17 * 17 * 17);
+		Path file = Files.write(dir.resolve("ptn"), large);
+		assertArrayEquals(KangarooTwelve.digest(large, "C".getBytes(), 256),
+						  KangarooTwelve.digest(file, "C".getBytes(), 256, true));
+	}
+
+	private static byte[] ptn(final int n) {
+		byte[] out = new byte[n];
+		for (int i = 0; i < n; i++) {
+			out[i] = (byte)(i % 251);
+		}
+		return out;
+	}
+
+	private static byte[] hex(final String s) {
+		return HexFormat.of().parseHex(s);
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the reference and unrolled Keccak engines over the same states and
+ * checks that they agree, for every round count.
+ *
+ * @author Minh Nguyen
+ */
+class KeccakEngineTest {
+
+	private final KeccakEngine reference = new ReferenceKeccakEngine();
+	private final KeccakEngine unrolled = new UnrolledKeccakEngine();
+
+	@Test
+	void permutesTheZeroStateToTheKnownAnswer() {
+		// first lane of Keccak-f[1600] applied to the all-zero state
+		long[] a = new long[25];
+		reference.permute(a);
+		assertEquals(0xF1258F7940E1DDE7L, a[0]);
+
+		long[] b = new long[25];
+		unrolled.permute(b);
+		assertArrayEquals(a, b);
+	}
+
+	@Test
+	void enginesAgreeOnRandomStates() {
+		Random random = new Random(1);
+		for (int rounds = 1; rounds <= 24; rounds++) {
+			for (int trial = 0; trial < 50; trial++) {
+				long[] a = new long[25];
+				for (int i = 0; i < 25; i++) {
+					a[i] = random.nextLong();
+				}
+				long[] b = a.clone();
+				reference.permute(a, rounds);
+				unrolled.permute(b, rounds);
+				assertArrayEquals(a, b, "Keccak-p[1600, " + rounds + "]");
+			}
+		}
+	}
+
+	@Test
+	void enginesAgreeOverChainedPermutations() {
+		long[] a = new long[25];
+		long[] b = new long[25];
+		for (int i = 0; i < 1000; i++) {
+			a[i % 25] ^= i;
+			b[i % 25] ^= i;
+			reference.permute(a);
+			unrolled.permute(b);
+		}
+		assertArrayEquals(a, b);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * ParallelHash256 and ParallelHashXOF256 against the NIST SP 800-185 samples
+ * (B = 8, with and without a customization string).
+ *
+ * @author Minh Nguyen
+ */
+class ParallelHash256Test {
+
+	private static final byte[] X = hex("000102030405060710111213141516172021222324252627");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void matchesParallelHash256Sample4() {
+		assertArrayEquals(hex("bc1ef124da34495e948ead207dd9842235da432d2bbc54b4c110e64c45110553"
+							  + "1b7f2a3e0ce055c02805e7c2de1fb746af97a1dd01f43b824e31b87612410429"),
+						  ParallelHash256.hash(X, 8, 512, "".getBytes()));
+	}
+
+	@Test
+	void matchesParallelHash256Sample5() {
+		assertArrayEquals(hex("cdf15289b54f6212b4bc270528b49526006dd9b54e2b6add1ef6900dda3963bb"
+							  + "33a72491f236969ca8afaea29c682d47a393c065b38e29fae651a2091c833110"),
+						  ParallelHash256.hash(X, 8, 512, "Parallel Data".getBytes()));
+	}
+
+	@Test
+	void matchesParallelHashXOF256Samples() {
+		assertArrayEquals(hex("c10a052722614684144d28474850b410757e3cba87651ba167a5cbddff7f4666"
+							  + "75fbf84bcae7378ac444be681d729499afca667fb879348bfdda427863c82f1c"),
+						  ParallelHash256.hashXOF(X, 8, 512, "".getBytes()));
+		assertArrayEquals(hex("538e105f1a22f44ed2f5cc1674fbd40be803d9c99bf5f8d90a2c8193f3fe6ea7"
+							  + "68e5c1a20987e2c9c65febed03887a51d35624ed12377594b5585541dc377efc"),
+						  ParallelHash256.hashXOF(X, 8, 512, "Parallel Data".getBytes()));
+	}
+
+	@Test
+	void hashesAFileLikeTheSameBytes() throws IOException {
+		byte[] data = new byte[300_001];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte)(i * 31);
+		}
+		Path file = Files.write(dir.resolve("data"), data);
+		for (int B : new int[] {1, 8, 4096, ParallelHash256.DEFAULT_BLOCK_SIZE}) {
+			assertArrayEquals(ParallelHash256.hash(data, B, 256, "S".getBytes()),
+							  ParallelHash256.hash(file, B, 256, "S".getBytes()), "B = " + B);
+		}
+	}
+
+	private static byte[] hex(final String s) {
+		return HexFormat.of().parseHex(s);
+	}
+}
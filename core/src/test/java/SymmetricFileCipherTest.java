@@ -0,0 +1,234 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Round trips and rejections of the on-disk cryptograms of
+ * SymmetricFileCipher: streaming (version 1), parallel (version 2),
+ * seekable (version 3) and parallel with a key commitment (version 4).
+ *
+ * @author Minh Nguyen
+ */
+class SymmetricFileCipherTest {
+
+	private static final byte[] PW = "file pass-phrase".getBytes();
+
+	/**
+	 * Chunk size B of the parallel modes and segment size S of the seekable
+	 * mode used by the tests: the smallest one accepted.
+	 */
+	private static final int B = SymmetricFileCipher.MIN_PARALLEL_CHUNK_SIZE;
+
+	/**
+	 * An encryption mode under test.
+	 */
+	private interface Mode {
+		void encrypt(Path in, Path out, byte[] pw) throws IOException;
+	}
+
+	private static final Mode STREAM = SymmetricFileCipher::encrypt;
+	private static final Mode PARALLEL = (in, out, pw) -> SymmetricFileCipher.encryptParallel(in, out, pw, B);
+	private static final Mode SEEKABLE = (in, out, pw) -> SymmetricFileCipher.encryptSeekable(in, out, pw, B);
+	private static final Mode[] MODES = {STREAM, PARALLEL, SEEKABLE};
+
+	@TempDir
+	Path dir;
+
+	private final Random random = new Random(1);
+
+	@Test
+	void roundTripsAtChunkBoundaries() throws IOException {
+		int[] parallelSizes = {0, 1, B - 1, B, B + 1, 3 * B + 1};
+		int[] streamSizes = {0, 1, SymmetricFileCipher.CHUNK_SIZE - 1, SymmetricFileCipher.CHUNK_SIZE,
+							 SymmetricFileCipher.CHUNK_SIZE + 1};
+		for (Mode mode : MODES) {
+			for (int size : mode == STREAM ? streamSizes : parallelSizes) {
+				byte[] m = bytes(size);
+				Path in = Files.write(dir.resolve("m"), m);
+				Path c = dir.resolve("c");
+				Path out = dir.resolve("out");
+				mode.encrypt(in, c, PW);
+				assertTrue(SymmetricFileCipher.isCryptogram(c));
+				assertTrue(SymmetricFileCipher.decrypt(c, out, PW), "|m| = " + size);
+				assertArrayEquals(m, Files.readAllBytes(out), "|m| = " + size);
+			}
+		}
+	}
+
+	@Test
+	void roundTripsInPlace() throws IOException {
+		for (Mode mode : MODES) {
+			byte[] m = bytes(2 * B + 17);
+			Path file = Files.write(dir.resolve("in-place"), m);
+			mode.encrypt(file, file, PW);
+			assertFalse(Arrays.equals(m, Files.readAllBytes(file)));
+			assertTrue(SymmetricFileCipher.decrypt(file, file, PW));
+			assertArrayEquals(m, Files.readAllBytes(file));
+		}
+	}
+
+	@Test
+	void decryptsAVersion2Cryptogram() throws IOException {
+		// version 2 is version 4 without the key commitment
+		byte[] m = bytes(3 * B + 5);
+		Path c = encrypt(PARALLEL, m);
+		byte[] v4 = Files.readAllBytes(c);
+		int kc = SymmetricFileCipher.PARALLEL_HEADER_LENGTH;
+		byte[] v2 = new byte[v4.length - SymmetricFileCipher.COMMITMENT_LENGTH];
+		System.arraycopy(v4, 0, v2, 0, kc);
+		System.arraycopy(v4, kc + SymmetricFileCipher.COMMITMENT_LENGTH, v2, kc, v2.length - kc);
+		v2[4] = SymmetricFileCipher.VERSION_PARALLEL;
+		Files.write(c, v2);
+
+		Path out = dir.resolve("out");
+		assertTrue(SymmetricFileCipher.decrypt(c, out, PW));
+		assertArrayEquals(m, Files.readAllBytes(out));
+		assertFalse(SymmetricFileCipher.decrypt(c, out, "wrong".getBytes()));
+	}
+
+	@Test
+	void rejectsAWrongPassPhrase() throws IOException {
+		for (Mode mode : MODES) {
+			byte[] m = bytes(B + 1);
+			Path c = encrypt(mode, m);
+			Path out = dir.resolve("out");
+			assertFalse(SymmetricFileCipher.decrypt(c, out, "wrong".getBytes()));
+			assertFalse(Files.exists(out));
+		}
+	}
+
+	@Test
+	void rejectsAWrongPassPhraseAtTheCommitment() throws IOException {
+		// a 1 GB (sparse) payload that is never read: the commitment fails first
+		Path c = encrypt(PARALLEL, bytes(1));
+		try (RandomAccessFile file = new RandomAccessFile(c.toFile(), "rw")) {
+			file.setLength(1L << 30);
+		}
+		Path out = dir.resolve("out");
+		assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> assertFalse(SymmetricFileCipher.decrypt(c, out, "wrong".getBytes())));
+
+		// the right pass-phrase with a damaged commitment is rejected too
+		Path intact = encrypt(PARALLEL, bytes(B));
+		byte[] damaged = Files.readAllBytes(intact);
+		damaged[SymmetricFileCipher.PARALLEL_HEADER_LENGTH] ^= 0x01;
+		Files.write(intact, damaged);
+		assertFalse(SymmetricFileCipher.decrypt(intact, out, PW));
+	}
+
+	@Test
+	void rejectsATamperedPayload() throws IOException {
+		for (Mode mode : MODES) {
+			byte[] m = bytes(2 * B + 3);
+			Path c = encrypt(mode, m);
+			byte[] tampered = Files.readAllBytes(c);
+			tampered[tampered.length / 2] ^= 0x01;
+			Files.write(c, tampered);
+			Path out = dir.resolve("out");
+			assertFalse(SymmetricFileCipher.decrypt(c, out, PW));
+			assertFalse(Files.exists(out));
+		}
+	}
+
+	@Test
+	void rejectsATruncatedFile() throws IOException {
+		for (Mode mode : MODES) {
+			byte[] m = bytes(2 * B + 3);
+			Path c = encrypt(mode, m);
+			byte[] full = Files.readAllBytes(c);
+			Path out = dir.resolve("out");
+
+			Files.write(c, Arrays.copyOf(full, full.length - 1));
+			assertFalse(decryptsWithoutError(c, out));
+
+			Files.write(c, Arrays.copyOf(full, SymmetricFileCipher.HEADER_LENGTH - 1));
+			assertThrows(IOException.class, () -> SymmetricFileCipher.decrypt(c, out, PW));
+			assertFalse(Files.exists(out));
+		}
+	}
+
+	@Test
+	void readsRandomRangesThroughTheSeekableView() throws IOException {
+		byte[] m = bytes(5 * B + 123);
+		Path c = encrypt(SEEKABLE, m);
+		try (SeekableByteChannel view = SymmetricFileCipher.openSeekable(c, PW)) {
+			assertEquals(m.length, view.size());
+			for (int k = 0; k < 200; k++) {
+				int from = random.nextInt(m.length + 1);
+				int len = random.nextInt(Math.min(3 * B, m.length - from) + 1);
+				view.position(from);
+				ByteBuffer buffer = ByteBuffer.allocate(len);
+				while (buffer.hasRemaining() && view.read(buffer) > 0) {
+					// keep reading
+				}
+				assertArrayEquals(Arrays.copyOfRange(m, from, from + len), buffer.array(),
+								  "[" + from + ", " + (from + len) + ")");
+			}
+			view.position(m.length);
+			assertEquals(-1, view.read(ByteBuffer.allocate(1)));
+		}
+	}
+
+	@Test
+	void seekableViewRejectsTamperingAndAWrongPassPhrase() throws IOException {
+		byte[] m = bytes(3 * B);
+		Path c = encrypt(SEEKABLE, m);
+		try (SeekableByteChannel view = SymmetricFileCipher.openSeekable(c, "wrong".getBytes())) {
+			assertThrows(IOException.class, () -> view.read(ByteBuffer.allocate(1)));
+		}
+
+		byte[] tampered = Files.readAllBytes(c);
+		tampered[SymmetricFileCipher.PARALLEL_HEADER_LENGTH + B + 64 + 10] ^= 0x01;	// in segment 1
+		Files.write(c, tampered);
+		try (SeekableByteChannel view = SymmetricFileCipher.openSeekable(c, PW)) {
+			ByteBuffer first = ByteBuffer.allocate(B);
+			view.read(first);
+			assertArrayEquals(Arrays.copyOf(m, B), first.array());
+			assertThrows(IOException.class, () -> view.read(ByteBuffer.allocate(1)));
+		}
+	}
+
+	private Path encrypt(final Mode mode, final byte[] m) throws IOException {
+		Path in = Files.write(dir.resolve("plain"), m);
+		Path c = dir.resolve("cryptogram");
+		mode.encrypt(in, c, PW);
+		return c;
+	}
+
+	/**
+	 * @return whether decrypt accepted the file; an IOException counts as a rejection.
+	 */
+	private static boolean decryptsWithoutError(final Path c, final Path out) {
+		try {
+			return SymmetricFileCipher.decrypt(c, out, PW);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private byte[] bytes(final int n) {
+		byte[] out = new byte[n];
+		random.nextBytes(out);
+		return out;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Cryptography Practical Project
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sealing and opening records of a SymmetricSession.
+ *
+ * @author Minh Nguyen
+ */
+class SymmetricSessionTest {
+
+	private static final byte[] PW = "session pass-phrase".getBytes();
+
+	@Test
+	void opensWhatItSealsInAnyOrder() {
+		SymmetricSession sender = SymmetricSession.start(PW);
+		SymmetricSession receiver = SymmetricSession.resume(sender.getZ(), PW);
+		Random random = new Random(1);
+		byte[][] messages = new byte[8][];
+		int[] lengths = {0, 1, 135, 136, 137, 272, 1000, 5};
+		for (int k = 0; k < messages.length; k++) {
+			messages[k] = new byte[lengths[k]];
+			random.nextBytes(messages[k]);
+		}
+		byte[][] records = sender.sealAll(messages);
+		for (int k = records.length - 1; k >= 0; k--) {
+			assertArrayEquals(messages[k], receiver.open(records[k]));
+		}
+		assertArrayEquals(messages, sender.openAll(records));
+	}
+
+	@Test
+	void rejectsTamperedRecords() {
+		SymmetricSession sender = SymmetricSession.start(PW);
+		SymmetricSession receiver = SymmetricSession.resume(sender.getZ(), PW);
+		byte[] record = sender.seal("a short record".getBytes());
+
+		for (int i = 0; i < record.length; i++) {
+			byte[] tampered = record.clone();
+			tampered[i] ^= 0x01;
+			assertNull(receiver.open(tampered), "byte " + i);
+		}
+		assertNull(receiver.open(new byte[SymmetricSession.OVERHEAD - 1]));
+	}
+
+	@Test
+	void rejectsAWrongPassPhrase() {
+		SymmetricSession sender = SymmetricSession.start(PW);
+		byte[] record = sender.seal("a short record".getBytes());
+		assertNull(SymmetricSession.resume(sender.getZ(), "wrong".getBytes()).open(record));
+	}
+
+	@Test
+	void rejectsAForgedNegativeCounter() {
+		SymmetricSession sender = SymmetricSession.start(PW);
+		SymmetricSession receiver = SymmetricSession.resume(sender.getZ(), PW);
+		byte[] record = null;
+		for (int i = 0; i <= 5; i++) {
+			record = sender.seal("record".getBytes());
+		}
+		assertNotNull(receiver.open(record));
+
+		// counter 5 rewritten to 0xFFFFFFFFFFFFFF05, i.e. -251
+		byte[] forged = record.clone();
+		ByteBuffer.wrap(forged).putLong(0, 0xFFFFFFFFFFFFFF05L);
+		assertNull(receiver.open(forged));
+	}
+
+	@Test
+	void aResumedSessionCannotSeal() {
+		SymmetricSession receiver = SymmetricSession.resume(new byte[SymmetricSession.Z_LENGTH], PW);
+		assertThrows(IllegalStateException.class, () -> receiver.seal(new byte[1]));
+	}
+}